@@ -0,0 +1,171 @@
+package collection;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+// Множество int с открытой адресацией. Реализует Set<Integer> для совместимости с моделью
+// и Gson, но хранит значения без упаковки
+public class IntHashSet extends AbstractSet<Integer> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final int MAX_LOAD_PERCENT = 60;
+
+    private int[] keys;
+    private boolean[] used;
+    private int size;
+
+    public IntHashSet() {
+        keys = new int[DEFAULT_CAPACITY];
+        used = new boolean[DEFAULT_CAPACITY];
+    }
+
+    public IntHashSet(Collection<Integer> source) {
+        if (source instanceof IntHashSet set) {
+            keys = set.keys.clone();
+            used = set.used.clone();
+            size = set.size;
+        } else {
+            keys = new int[DEFAULT_CAPACITY];
+            used = new boolean[DEFAULT_CAPACITY];
+            for (Integer key : source) {
+                insert(key);
+            }
+        }
+    }
+
+    public boolean add(int key) {
+        return insert(key);
+    }
+
+    private boolean insert(int key) {
+        int mask = keys.length - 1;
+        for (int slot = IntObjectHashMap.hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (!used[slot]) {
+                keys[slot] = key;
+                used[slot] = true;
+                if (++size * 100 > keys.length * MAX_LOAD_PERCENT) {
+                    resize();
+                }
+                return true;
+            }
+            if (keys[slot] == key) {
+                return false;
+            }
+        }
+    }
+
+    public boolean contains(int key) {
+        return find(key) >= 0;
+    }
+
+    public boolean remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        int mask = keys.length - 1;
+        int free = slot;
+        for (int i = (slot + 1) & mask; used[i]; i = (i + 1) & mask) {
+            int home = IntObjectHashMap.hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                free = i;
+            }
+        }
+        used[free] = false;
+        size--;
+        return true;
+    }
+
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    @Override
+    public boolean add(Integer key) {
+        return add(key.intValue());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer key && contains(key.intValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer key && remove(key.intValue());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int slot = advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && !used[from]) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return slot < keys.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (slot >= keys.length) {
+                    throw new NoSuchElementException();
+                }
+                int key = keys[slot];
+                slot = advance(slot + 1);
+                return key;
+            }
+        };
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        for (int slot = IntObjectHashMap.hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        keys = new int[oldKeys.length << 1];
+        used = new boolean[oldUsed.length << 1];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) {
+                continue;
+            }
+            int slot = IntObjectHashMap.hash(oldKeys[i]) & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            used[slot] = true;
+        }
+    }
+}
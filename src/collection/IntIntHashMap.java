@@ -0,0 +1,122 @@
+package collection;
+
+import java.util.Arrays;
+
+// Отображение int -> int на открытой адресации, устроенное как IntObjectHashMap;
+// занятость ячеек хранится отдельно, поэтому допустимо любое значение
+public class IntIntHashMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_LOAD_PERCENT = 60;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 100 / MAX_LOAD_PERCENT, 2) - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    public int get(int key, int missingValue) {
+        int slot = find(key);
+        return slot < 0 ? missingValue : values[slot];
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    public void put(int key, int value) {
+        int mask = keys.length - 1;
+        for (int slot = IntObjectHashMap.hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (!used[slot]) {
+                keys[slot] = key;
+                values[slot] = value;
+                used[slot] = true;
+                if (++size * 100 > keys.length * MAX_LOAD_PERCENT) {
+                    resize();
+                }
+                return;
+            }
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+    }
+
+    // Возвращает удаленное значение или missingValue, если ключа не было
+    public int remove(int key, int missingValue) {
+        int slot = find(key);
+        if (slot < 0) {
+            return missingValue;
+        }
+        int previous = values[slot];
+        removeAt(slot);
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        for (int slot = IntObjectHashMap.hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int slot) {
+        int mask = keys.length - 1;
+        int free = slot;
+        for (int i = (slot + 1) & mask; used[i]; i = (i + 1) & mask) {
+            int home = IntObjectHashMap.hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        used[free] = false;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[oldKeys.length << 1];
+        values = new int[oldValues.length << 1];
+        used = new boolean[oldUsed.length << 1];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) {
+                continue;
+            }
+            int slot = IntObjectHashMap.hash(oldKeys[i]) & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+            used[slot] = true;
+        }
+    }
+}
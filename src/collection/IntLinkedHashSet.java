@@ -0,0 +1,101 @@
+package collection;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Множество int в порядке последнего добавления, как LinkedHashSet с переносом в конец.
+// Узлы списка лежат в параллельных массивах и связаны номерами ячеек, поэтому добавление
+// и удаление не создают объектов
+public class IntLinkedHashSet {
+
+    private static final int NONE = -1;
+    private static final int DEFAULT_SLOTS = 16;
+
+    private final IntIntHashMap slots = new IntIntHashMap(); // <value, slot>
+    private int[] values = new int[DEFAULT_SLOTS];
+    private int[] prev = new int[DEFAULT_SLOTS];
+    private int[] next = new int[DEFAULT_SLOTS];
+    private int allocated; // ячейки правее ни разу не использовались
+    private int free = NONE; // освободившиеся ячейки, связанные через next
+
+    private int first = NONE;
+    private int last = NONE;
+
+    // Добавляет значение в конец; уже существующее переносится в конец
+    public void addLast(int value) {
+        if (last != NONE && values[last] == value) {
+            return;
+        }
+        remove(value);
+        int slot = allocate();
+        values[slot] = value;
+        prev[slot] = last;
+        next[slot] = NONE;
+        if (last == NONE) {
+            first = slot;
+        } else {
+            next[last] = slot;
+        }
+        last = slot;
+        slots.put(value, slot);
+    }
+
+    public boolean remove(int value) {
+        int slot = slots.remove(value, NONE);
+        if (slot == NONE) {
+            return false;
+        }
+        if (prev[slot] == NONE) {
+            first = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == NONE) {
+            last = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+        next[slot] = free;
+        free = slot;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return slots.containsKey(value);
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    // Обходит значения от самого давнего к последнему добавленному
+    public void forEachInt(IntConsumer action) {
+        for (int slot = first; slot != NONE; slot = next[slot]) {
+            action.accept(values[slot]);
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[slots.size()];
+        int count = 0;
+        for (int slot = first; slot != NONE; slot = next[slot]) {
+            result[count++] = values[slot];
+        }
+        return result;
+    }
+
+    private int allocate() {
+        if (free != NONE) {
+            int slot = free;
+            free = next[slot];
+            return slot;
+        }
+        if (allocated == values.length) {
+            int length = values.length << 1;
+            values = Arrays.copyOf(values, length);
+            prev = Arrays.copyOf(prev, length);
+            next = Arrays.copyOf(next, length);
+        }
+        return allocated++;
+    }
+}
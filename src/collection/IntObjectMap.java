@@ -0,0 +1,77 @@
+package collection;
+
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+// Отображение с примитивными int-ключами, без упаковки в Integer
+public interface IntObjectMap<V> {
+
+    V get(int key);
+
+    boolean containsKey(int key);
+
+    V put(int key, V value);
+
+    V remove(int key);
+
+    V computeIfAbsent(int key, IntFunction<? extends V> function);
+
+    void forEachValue(Consumer<? super V> action);
+
+    int size();
+
+    void clear();
+
+    static <V> IntObjectMap<V> synchronizedMap(IntObjectMap<V> map) {
+        return new SynchronizedIntObjectMap<>(map);
+    }
+
+    final class SynchronizedIntObjectMap<V> implements IntObjectMap<V> {
+
+        private final IntObjectMap<V> map;
+
+        private SynchronizedIntObjectMap(IntObjectMap<V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public synchronized V get(int key) {
+            return map.get(key);
+        }
+
+        @Override
+        public synchronized boolean containsKey(int key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public synchronized V put(int key, V value) {
+            return map.put(key, value);
+        }
+
+        @Override
+        public synchronized V remove(int key) {
+            return map.remove(key);
+        }
+
+        @Override
+        public synchronized V computeIfAbsent(int key, IntFunction<? extends V> function) {
+            return map.computeIfAbsent(key, function);
+        }
+
+        @Override
+        public synchronized void forEachValue(Consumer<? super V> action) {
+            map.forEachValue(action);
+        }
+
+        @Override
+        public synchronized int size() {
+            return map.size();
+        }
+
+        @Override
+        public synchronized void clear() {
+            map.clear();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package collection;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+// Неизменяемое отображение с int-ключами: префиксное дерево по 5 бит ключа на уровень
+// со сжатыми битовой маской узлами. Ключи не упаковываются, запись копирует только путь
+// от корня (не больше 7 узлов), обход идет по возрастанию ключа как беззнакового числа
+public final class PersistentIntMap<V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0, 0);
+
+    private static final class Node {
+        final int bitmap;
+        final Object[] slots; // на нижнем уровне значения, выше дочерние узлы
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    private final Node root;
+    private final int shift;
+    private final int size;
+
+    private PersistentIntMap(Node root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    // Строит отображение за один проход по отсортированным ключам, без копирования пути на каждую запись,
+    // как при последовательных put. Ключи значений должны быть различны
+    public static <V> PersistentIntMap<V> of(Collection<? extends V> values, ToIntFunction<? super V> keyFunction) {
+        Object[] source = values.toArray();
+        if (source.length == 0) {
+            return empty();
+        }
+        // Ключ с инвертированным знаковым битом (порядок без знака) и позиция значения упакованы в long,
+        // чтобы сортировать примитивы
+        long[] order = new long[source.length];
+        for (int i = 0; i < source.length; i++) {
+            @SuppressWarnings("unchecked")
+            int key = keyFunction.applyAsInt((V) Objects.requireNonNull(source[i]));
+            order[i] = (long) (key ^ Integer.MIN_VALUE) << 32 | i;
+        }
+        Arrays.parallelSort(order);
+        int[] keys = new int[source.length];
+        Object[] sorted = new Object[source.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = (int) (order[i] >> 32) ^ Integer.MIN_VALUE;
+            sorted[i] = source[(int) order[i]];
+            if (i > 0 && keys[i] == keys[i - 1]) {
+                throw new IllegalArgumentException("Duplicate key " + keys[i] + ".");
+            }
+        }
+        int shift = 0;
+        while (!fits(keys[keys.length - 1], shift)) {
+            shift += BITS;
+        }
+        return new PersistentIntMap<>(build(keys, sorted, 0, keys.length, shift), shift, keys.length);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (root == null || !fits(key, shift)) {
+            return null;
+        }
+        Node node = root;
+        for (int s = shift; ; s -= BITS) {
+            int bit = 1 << ((key >>> s) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object child = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (s == 0) {
+                return (V) child;
+            }
+            node = (Node) child;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public PersistentIntMap<V> put(int key, V value) {
+        Objects.requireNonNull(value);
+        Node node = root;
+        int s = root == null ? 0 : shift;
+        while (!fits(key, s)) {
+            // Дерево растет вверх: все прежние ключи попадают в нулевую ветку нового корня
+            if (node != null) {
+                node = new Node(1, new Object[]{node});
+            }
+            s += BITS;
+        }
+        int added = get(key) == null ? 1 : 0;
+        return new PersistentIntMap<>(put(node, s, key, value), s, size + added);
+    }
+
+    public PersistentIntMap<V> remove(int key) {
+        if (get(key) == null) {
+            return this;
+        }
+        Node node = remove(root, shift, key);
+        return node == null ? empty() : new PersistentIntMap<>(node, shift, size - 1);
+    }
+
+    public PersistentIntMap<V> clear() {
+        return empty();
+    }
+
+    public Collection<V> values() {
+        return new Values<>(this);
+    }
+
+    // Значения с ключами от from по возрастанию
+    public Iterator<V> tailValues(int from, boolean inclusive) {
+        if (!inclusive) {
+            if (from == -1) {
+                return Collections.emptyIterator();
+            }
+            from++;
+        }
+        return new Ascending<>(this, from);
+    }
+
+    private static boolean fits(int key, int shift) {
+        return (key >>> shift) >>> BITS == 0;
+    }
+
+    private static Node put(Node node, int shift, int key, Object value) {
+        int bit = 1 << ((key >>> shift) & MASK);
+        if (node == null) {
+            return new Node(bit, new Object[]{shift == 0 ? value : put(null, shift - BITS, key, value)});
+        }
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) != 0) {
+            Object[] slots = node.slots.clone();
+            slots[index] = shift == 0 ? value : put((Node) slots[index], shift - BITS, key, value);
+            return new Node(node.bitmap, slots);
+        }
+        Object[] slots = new Object[node.slots.length + 1];
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        slots[index] = shift == 0 ? value : put(null, shift - BITS, key, value);
+        System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+        return new Node(node.bitmap | bit, slots);
+    }
+
+    // Узел для отсортированных ключей [from, to), совпадающих во всех цифрах выше shift
+    private static Node build(int[] keys, Object[] values, int from, int to, int shift) {
+        Object[] children = new Object[1 << BITS];
+        int bitmap = 0;
+        int count = 0;
+        for (int i = from; i < to; ) {
+            int digit = (keys[i] >>> shift) & MASK;
+            int start = i;
+            while (i < to && ((keys[i] >>> shift) & MASK) == digit) {
+                i++;
+            }
+            bitmap |= 1 << digit;
+            children[count++] = shift == 0 ? values[start] : build(keys, values, start, i, shift - BITS);
+        }
+        return new Node(bitmap, Arrays.copyOf(children, count));
+    }
+
+    // Ключ гарантированно присутствует; опустевшие узлы удаляются из родителя
+    private static Node remove(Node node, int shift, int key) {
+        int bit = 1 << ((key >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        if (shift > 0) {
+            Node child = remove((Node) node.slots[index], shift - BITS, key);
+            if (child != null) {
+                Object[] slots = node.slots.clone();
+                slots[index] = child;
+                return new Node(node.bitmap, slots);
+            }
+        }
+        if (node.slots.length == 1) {
+            return null;
+        }
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+        return new Node(node.bitmap & ~bit, slots);
+    }
+
+    private static final class Values<V> extends AbstractCollection<V> {
+
+        private final PersistentIntMap<V> map;
+
+        private Values(PersistentIntMap<V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public int size() {
+            return map.size;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return map.tailValues(0, true);
+        }
+    }
+
+    // Обход в глубину с явным стеком: для каждого уровня хранится узел и следующая позиция в нем
+    private static final class Ascending<V> implements Iterator<V> {
+
+        private final Node[] nodes;
+        private final int[] positions;
+        private int depth = -1;
+        private Object next;
+
+        private Ascending(PersistentIntMap<V> map, int from) {
+            int levels = map.shift / BITS + 1;
+            nodes = new Node[levels];
+            positions = new int[levels];
+            if (map.root == null || !fits(from, map.shift)) {
+                return;
+            }
+            // Спускаемся по пути ключа from, пока он совпадает с существующими ветками
+            Node node = map.root;
+            for (int s = map.shift; node != null; s -= BITS) {
+                int digit = (from >>> s) & MASK;
+                int index = Integer.bitCount(node.bitmap & ((1 << digit) - 1));
+                boolean exact = (node.bitmap & (1 << digit)) != 0;
+                nodes[++depth] = node;
+                if (exact && s > 0) {
+                    positions[depth] = index + 1;
+                    node = (Node) node.slots[index];
+                } else {
+                    positions[depth] = index;
+                    node = null;
+                }
+            }
+            advance();
+        }
+
+        // Находит следующее значение; дочерние узлы после точки входа обходятся с самого начала
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (positions[depth] == node.slots.length) {
+                    depth--;
+                    continue;
+                }
+                Object child = node.slots[positions[depth]++];
+                if (depth == nodes.length - 1) {
+                    next = child;
+                    return;
+                }
+                nodes[++depth] = (Node) child;
+                positions[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            V result = (V) next;
+            advance();
+            return result;
+        }
+    }
+}
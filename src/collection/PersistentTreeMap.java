@@ -0,0 +1,338 @@
+package collection;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Неизменяемое упорядоченное отображение (декартово дерево с копированием пути).
+// Каждое изменение возвращает новую версию за O(log n), разделяя с предыдущей все нетронутые узлы,
+// поэтому опубликованную версию можно читать без блокировок и копирования
+public final class PersistentTreeMap<K, V> {
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int priority;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int size;
+
+        Node(K key, V value, int priority, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+
+        Node<K, V> with(Node<K, V> left, Node<K, V> right) {
+            return new Node<>(key, value, priority, left, right);
+        }
+    }
+
+    private final Comparator<? super K> comparator;
+    private final Node<K, V> root;
+
+    private PersistentTreeMap(Comparator<? super K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    public static <K extends Comparable<? super K>, V> PersistentTreeMap<K, V> empty() {
+        return new PersistentTreeMap<>(Comparator.naturalOrder(), null);
+    }
+
+    public static <K, V> PersistentTreeMap<K, V> empty(Comparator<? super K> comparator) {
+        return new PersistentTreeMap<>(comparator, null);
+    }
+
+    // Строит дерево из строго возрастающих ключей за O(n): декартово дерево по случайным приоритетам
+    // собирается стеком правой границы, а не вставками с копированием пути
+    public static <K extends Comparable<? super K>, V> PersistentTreeMap<K, V> ofSorted(List<K> keys, List<V> values) {
+        int size = keys.size();
+        if (size != values.size()) {
+            throw new IllegalArgumentException("Keys and values differ in size.");
+        }
+        Comparator<? super K> comparator = Comparator.naturalOrder();
+        Object[] keyArray = keys.toArray();
+        Object[] valueArray = values.toArray();
+        int[] priorities = new int[size];
+        int[] left = new int[size];
+        int[] right = new int[size];
+        int[] stack = new int[size];
+        int top = 0;
+        for (int i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            K key = (K) keyArray[i];
+            @SuppressWarnings("unchecked")
+            K previous = i == 0 ? null : (K) keyArray[i - 1];
+            if (previous != null && comparator.compare(previous, key) >= 0) {
+                throw new IllegalArgumentException("Keys must be strictly ascending.");
+            }
+            priorities[i] = ThreadLocalRandom.current().nextInt();
+            right[i] = -1;
+            // Узлы с меньшим приоритетом уходят в левое поддерево нового узла
+            int last = -1;
+            while (top > 0 && priorities[stack[top - 1]] < priorities[i]) {
+                last = stack[--top];
+            }
+            left[i] = last;
+            if (top > 0) {
+                right[stack[top - 1]] = i;
+            }
+            stack[top++] = i;
+        }
+        Node<K, V> root = top == 0 ? null : build(stack[0], keyArray, valueArray, priorities, left, right);
+        return new PersistentTreeMap<>(comparator, root);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> build(
+            int index,
+            Object[] keys,
+            Object[] values,
+            int[] priorities,
+            int[] left,
+            int[] right
+    ) {
+        return new Node<>(
+                (K) keys[index],
+                (V) values[index],
+                priorities[index],
+                left[index] < 0 ? null : build(left[index], keys, values, priorities, left, right),
+                right[index] < 0 ? null : build(right[index], keys, values, priorities, left, right)
+        );
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(key, node.key);
+            if (cmp == 0) {
+                return node.value;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    public PersistentTreeMap<K, V> put(K key, V value) {
+        return new PersistentTreeMap<>(comparator, insert(root, key, value));
+    }
+
+    public PersistentTreeMap<K, V> remove(K key) {
+        Node<K, V> newRoot = delete(root, key);
+        return newRoot == root ? this : new PersistentTreeMap<>(comparator, newRoot);
+    }
+
+    public PersistentTreeMap<K, V> clear() {
+        return new PersistentTreeMap<>(comparator, null);
+    }
+
+    // Значения в порядке ключей; представление неизменяемо и создается за O(1)
+    public List<V> values() {
+        return new Values<>(this);
+    }
+
+    // Значения с ключами не меньше from (строго больше, если inclusive == false) в порядке возрастания
+    public Iterator<V> tailValues(K from, boolean inclusive) {
+        return valueIterator(new Ascending<>(root, from, comparator, inclusive));
+    }
+
+    // Пары с ключами строго меньше to в порядке убывания
+    public Iterator<Map.Entry<K, V>> headEntriesDescending(K to) {
+        return new Descending<>(root, to, comparator);
+    }
+
+    private Node<K, V> insert(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, ThreadLocalRandom.current().nextInt(), null, null);
+        }
+        int cmp = comparator.compare(key, node.key);
+        if (cmp == 0) {
+            return new Node<>(key, value, node.priority, node.left, node.right);
+        }
+        if (cmp < 0) {
+            Node<K, V> left = insert(node.left, key, value);
+            if (left.priority > node.priority) {
+                // Правый поворот
+                return left.with(left.left, node.with(left.right, node.right));
+            }
+            return node.with(left, node.right);
+        } else {
+            Node<K, V> right = insert(node.right, key, value);
+            if (right.priority > node.priority) {
+                // Левый поворот
+                return right.with(node.with(node.left, right.left), right.right);
+            }
+            return node.with(node.left, right);
+        }
+    }
+
+    private Node<K, V> delete(Node<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(key, node.key);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            Node<K, V> left = delete(node.left, key);
+            return left == node.left ? node : node.with(left, node.right);
+        } else {
+            Node<K, V> right = delete(node.right, key);
+            return right == node.right ? node : node.with(node.left, right);
+        }
+    }
+
+    private static <K, V> Node<K, V> merge(Node<K, V> left, Node<K, V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return left.with(left.left, merge(left.right, right));
+        }
+        return right.with(merge(left, right.left), right.right);
+    }
+
+    private static <K, V> Node<K, V> byRank(Node<K, V> node, int index) {
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <K, V> Iterator<V> valueIterator(Iterator<Map.Entry<K, V>> entries) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return entries.next().getValue();
+            }
+        };
+    }
+
+    // Именованный класс, а не анонимный: Gson пропускает экземпляры анонимных классов
+    private static final class Values<V> extends AbstractList<V> {
+
+        private final PersistentTreeMap<?, V> map;
+
+        Values(PersistentTreeMap<?, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public V get(int index) {
+            Objects.checkIndex(index, size());
+            return byRank(map.root, index).value;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return valueIterator(new Ascending<>(map.root, null, null, true));
+        }
+    }
+
+    private static final class Ascending<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        private final Deque<Node<K, V>> stack = new ArrayDeque<>();
+
+        Ascending(Node<K, V> node, K from, Comparator<? super K> comparator, boolean inclusive) {
+            while (node != null) {
+                int cmp = from == null ? -1 : comparator.compare(from, node.key);
+                if (cmp < 0 || (cmp == 0 && inclusive)) {
+                    stack.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = stack.pop();
+            for (Node<K, V> next = node.right; next != null; next = next.left) {
+                stack.push(next);
+            }
+            return Map.entry(node.key, node.value);
+        }
+    }
+
+    private static final class Descending<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        private final Deque<Node<K, V>> stack = new ArrayDeque<>();
+
+        Descending(Node<K, V> node, K to, Comparator<? super K> comparator) {
+            while (node != null) {
+                if (comparator.compare(node.key, to) < 0) {
+                    stack.push(node);
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = stack.pop();
+            for (Node<K, V> next = node.left; next != null; next = next.right) {
+                stack.push(next);
+            }
+            return Map.entry(node.key, node.value);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package collection;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// То же, что VersionedMap, но поверх PersistentIntMap: идентификаторы хранятся без упаковки
+public class VersionedIntMap<V> {
+
+    private final AtomicReference<PersistentIntMap<V>> current =
+            new AtomicReference<>(PersistentIntMap.empty());
+
+    public PersistentIntMap<V> snapshot() {
+        return current.get();
+    }
+
+    public Collection<V> values() {
+        return current.get().values();
+    }
+
+    public int size() {
+        return current.get().size();
+    }
+
+    public boolean isEmpty() {
+        return current.get().isEmpty();
+    }
+
+    public V get(int key) {
+        return current.get().get(key);
+    }
+
+    public boolean containsKey(int key) {
+        return current.get().containsKey(key);
+    }
+
+    public V put(int key, V value) {
+        return update(map -> map.put(key, value)).get(key);
+    }
+
+    public V remove(int key) {
+        return update(map -> map.remove(key)).get(key);
+    }
+
+    public void clear() {
+        update(PersistentIntMap::clear);
+    }
+
+    // Функция может быть применена повторно при гонке писателей и не должна иметь побочных эффектов
+    public PersistentIntMap<V> update(UnaryOperator<PersistentIntMap<V>> function) {
+        while (true) {
+            PersistentIntMap<V> previous = current.get();
+            if (current.compareAndSet(previous, function.apply(previous))) {
+                return previous;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package collection;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// Изменяемая обертка над PersistentTreeMap: каждая запись атомарно публикует новую версию,
+// читатели получают согласованный снимок без блокировок и копирования
+public class VersionedMap<K extends Comparable<? super K>, V> {
+
+    private final AtomicReference<PersistentTreeMap<K, V>> current =
+            new AtomicReference<>(PersistentTreeMap.empty());
+
+    public PersistentTreeMap<K, V> snapshot() {
+        return current.get();
+    }
+
+    public List<V> values() {
+        return current.get().values();
+    }
+
+    public int size() {
+        return current.get().size();
+    }
+
+    public boolean isEmpty() {
+        return current.get().isEmpty();
+    }
+
+    public V get(K key) {
+        return current.get().get(key);
+    }
+
+    public boolean containsKey(K key) {
+        return current.get().containsKey(key);
+    }
+
+    public V put(K key, V value) {
+        return update(map -> map.put(key, value)).get(key);
+    }
+
+    public V remove(K key) {
+        return update(map -> map.remove(key)).get(key);
+    }
+
+    public void clear() {
+        update(PersistentTreeMap::clear);
+    }
+
+    // Применяет функцию к текущей версии и публикует результат; возвращает замененную версию.
+    // При гонке с другим писателем функция применяется повторно, поэтому она не должна иметь побочных эффектов
+    public PersistentTreeMap<K, V> update(UnaryOperator<PersistentTreeMap<K, V>> function) {
+        while (true) {
+            PersistentTreeMap<K, V> previous = current.get();
+            if (current.compareAndSet(previous, function.apply(previous))) {
+                return previous;
+            }
+        }
+    }
+}
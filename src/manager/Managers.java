@@ -1,17 +1,35 @@
 package manager;
 
+import manager.history.ConcurrentHistoryManager;
 import manager.history.HistoryManager;
 import manager.history.InMemoryHistoryManager;
+import manager.task.ConcurrentTaskManager;
 import manager.task.InMemoryTaskManager;
 import manager.task.TaskManager;
 
+import java.time.Duration;
+
 public class Managers {
 
     public static TaskManager getDefault() {
         return new InMemoryTaskManager(getDefaultHistory());
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager(new ConcurrentHistoryManager(getDefaultHistory()));
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // История хранит не больше capacity последних просмотров
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity, null);
+    }
+
+    // Дополнительно забывает просмотры старше ttl
+    public static HistoryManager getDefaultHistory(int capacity, Duration ttl) {
+        return new InMemoryHistoryManager(capacity, ttl);
+    }
 }
@@ -0,0 +1,80 @@
+package manager.event;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Доставляет события обработчику в отдельном потоке через ограниченную очередь.
+// Если очередь заполнена, изменяющий поток ждет: события не теряются, а память ограничена
+public class AsyncTaskListener implements TaskListener, AutoCloseable {
+
+    private final TaskListener delegate;
+    private final ListenerErrorHandler errorHandler;
+    private final BlockingQueue<TaskEvent> queue;
+    private final Thread worker;
+    private final AtomicLong failures = new AtomicLong();
+    private volatile boolean closed;
+
+    public AsyncTaskListener(TaskListener delegate, int capacity) {
+        this(delegate, capacity, ListenerErrorHandler.IGNORE);
+    }
+
+    // errorHandler вызывается в потоке доставки
+    public AsyncTaskListener(TaskListener delegate, int capacity, ListenerErrorHandler errorHandler) {
+        this.delegate = delegate;
+        this.errorHandler = errorHandler;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::run, "task-events");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void onEvent(TaskEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Listener is closed.");
+        }
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Число событий, на которых обработчик бросил исключение
+    public long getFailures() {
+        return failures.get();
+    }
+
+    // Дожидается доставки уже принятых событий. Прерванное ожидание завершает close,
+    // а флаг прерывания сохраняется; поток доставки дорабатывает очередь сам
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                TaskEvent event = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    continue;
+                }
+                try {
+                    delegate.onEvent(event);
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    errorHandler.onError(event, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package manager.event;
+
+// Получает исключения слушателей: они не должны прерывать изменение менеджера или доставку
+// следующих событий, но и теряться незаметно тоже не должны
+@FunctionalInterface
+public interface ListenerErrorHandler {
+
+    ListenerErrorHandler IGNORE = (event, error) -> {
+    };
+
+    void onError(TaskEvent event, RuntimeException error);
+}
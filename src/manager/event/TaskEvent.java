@@ -0,0 +1,15 @@
+package manager.event;
+
+import model.Task;
+
+// Изменение в менеджере: before — значение до изменения (null при создании),
+// after — после (null при удалении). version строго возрастает от события к событию
+public record TaskEvent(long version, Type type, Task before, Task after) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        REMOVED,
+        EPIC_RECALCULATED // пересчет статуса и времени эпика после изменения его подзадач
+    }
+}
@@ -0,0 +1,8 @@
+package manager.event;
+
+@FunctionalInterface
+public interface TaskListener {
+
+    // Вызывается синхронно в потоке, изменившем менеджер; изменять менеджер из обработчика нельзя
+    void onEvent(TaskEvent event);
+}
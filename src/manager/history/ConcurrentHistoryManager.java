@@ -0,0 +1,107 @@
+package manager.history;
+
+import model.Task;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+// История для конкурентного доступа: просмотры не трогают список истории, а складываются
+// в неблокирующую очередь, которую применяет к истории единственный потребитель
+public class ConcurrentHistoryManager implements HistoryManager {
+
+    // Сколько событий может накопиться, прежде чем писатель попробует применить их сам
+    private static final int DRAIN_THRESHOLD = 1024;
+
+    private final HistoryManager historyManager; // доступ только под consumerLock
+    private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock consumerLock = new ReentrantLock();
+
+    // task == null означает удаление removedId
+    private record Event(Task task, int removedId) {
+    }
+
+    public ConcurrentHistoryManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        publish(new Event(task, 0));
+    }
+
+    @Override
+    public void remove(int id) {
+        publish(new Event(null, id));
+    }
+
+    @Override
+    public void setResolver(IntFunction<Task> resolver) {
+        consumerLock.lock();
+        try {
+            historyManager.setResolver(resolver);
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    @Override
+    public void setResolver(IntFunction<Task> resolver, LongSupplier version) {
+        consumerLock.lock();
+        try {
+            historyManager.setResolver(resolver, version);
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        consumerLock.lock();
+        try {
+            drain();
+            return historyManager.getHistory();
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    private void publish(Event event) {
+        events.offer(event);
+        // Чтобы очередь не росла без чтения истории, писатель помогает потребителю,
+        // но только если блокировка свободна — ждать ее он не должен
+        if (pending.incrementAndGet() >= DRAIN_THRESHOLD && consumerLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                consumerLock.unlock();
+            }
+        }
+    }
+
+    // Применяет события, опубликованные до начала вызова (watermark), и не дольше:
+    // иначе непрерывный поток просмотров мог бы задержать читателя истории навсегда
+    private void drain() {
+        int watermark = pending.get();
+        for (int i = 0; i < watermark; i++) {
+            Event event = events.poll();
+            if (event == null) {
+                break;
+            }
+            pending.decrementAndGet();
+            if (event.task() != null) {
+                historyManager.add(event.task());
+            } else {
+                historyManager.remove(event.removedId());
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package manager.history;
 import model.Task;
 
 import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
 
 public interface HistoryManager {
 
@@ -11,4 +13,14 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Источник актуальных версий задач по id; история может хранить только id и разрешать их при чтении
+    default void setResolver(IntFunction<Task> resolver) {
+    }
+
+    // То же, но version меняется при каждом изменении источника: пока он прежний,
+    // разрешенный список можно переиспользовать
+    default void setResolver(IntFunction<Task> resolver, LongSupplier version) {
+        setResolver(resolver);
+    }
 }
@@ -0,0 +1,156 @@
+package manager.history;
+
+import collection.IntHashSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Приблизительная частота обращений к задачам: count-min sketch считает просмотры всех id
+// в памяти фиксированного размера, а небольшой набор кандидатов хранит самые частые из них
+public class HotTaskCounter {
+
+    private static final int DEFAULT_WIDTH = 2048;
+    private static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters; // depth строк по width счетчиков
+    private final int capacity;
+
+    // Набор не меняется после публикации: чтение без блокировки, запись копирует набор под candidatesLock.
+    // Копирование дешево, так как набор маленький и меняется, только когда в него входит новый id
+    private volatile IntHashSet candidates = new IntHashSet();
+    private final ReentrantLock candidatesLock = new ReentrantLock();
+    // Оценка самого редкого кандидата: более редкие id не могут попасть в набор, и для них блокировка не нужна
+    private volatile long threshold;
+
+    public HotTaskCounter() {
+        this(DEFAULT_WIDTH, DEFAULT_DEPTH, DEFAULT_CAPACITY);
+    }
+
+    // Оценка завышена не больше чем на e/width от общего числа просмотров с вероятностью 1 - e^-depth
+    public HotTaskCounter(int width, int depth, int capacity) {
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Width must be a power of two.");
+        }
+        if (depth <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Depth and capacity must be positive.");
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.counters = new AtomicLongArray(width * depth);
+        this.capacity = capacity;
+    }
+
+    public void record(int id) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, id)));
+        }
+        // Обновление кандидатов не должно задерживать чтение задачи: уже попавшие в набор id блокировку
+        // не берут, а если набор занят другим потоком, этот просмотр учтен только в счетчиках
+        // и частый id все равно попадет в набор при следующих
+        if (estimate < threshold || candidates.contains(id) || !candidatesLock.tryLock()) {
+            return;
+        }
+        try {
+            offer(id, estimate);
+        } finally {
+            candidatesLock.unlock();
+        }
+    }
+
+    public long estimate(int id) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, id)));
+        }
+        return estimate;
+    }
+
+    // Убирает id из кандидатов, например после удаления задачи. Счетчики sketch уменьшить нельзя,
+    // не занизив оценки соседних id, поэтому они остаются. Порог остается оценкой самого редкого из оставшихся:
+    // освободившееся место займет id не реже них, а более редкие id по-прежнему не берут блокировку
+    public void remove(int id) {
+        if (!candidates.contains(id)) {
+            return;
+        }
+        candidatesLock.lock();
+        try {
+            IntHashSet current = candidates;
+            if (!current.contains(id)) {
+                return;
+            }
+            IntHashSet updated = new IntHashSet();
+            current.forEachInt(candidate -> {
+                if (candidate != id) {
+                    updated.add(candidate);
+                }
+            });
+            candidates = updated;
+            threshold = updated.size() == 0 ? 0 : estimate(rarest(updated));
+        } finally {
+            candidatesLock.unlock();
+        }
+    }
+
+    // До k самых частых id по убыванию оценки; кандидатов не больше capacity, поэтому и результат не длиннее
+    public List<Integer> top(int k) {
+        List<Integer> result = new ArrayList<>();
+        candidates.forEachInt(result::add);
+        result.sort(Comparator.comparingLong(this::estimate).reversed().thenComparing(Comparator.naturalOrder()));
+        return result.size() > k ? result.subList(0, k) : result;
+    }
+
+    private void offer(int id, long estimate) {
+        IntHashSet current = candidates;
+        if (current.contains(id)) {
+            return;
+        }
+        IntHashSet updated = new IntHashSet();
+        if (current.size() < capacity) {
+            current.forEachInt(updated::add);
+            updated.add(id);
+            candidates = updated;
+            return;
+        }
+        int rarest = rarest(current);
+        long rarestEstimate = estimate(rarest);
+        if (estimate > rarestEstimate) {
+            current.forEachInt(candidate -> {
+                if (candidate != rarest) {
+                    updated.add(candidate);
+                }
+            });
+            updated.add(id);
+            candidates = updated;
+        }
+        threshold = rarestEstimate;
+    }
+
+    private int rarest(IntHashSet set) {
+        int rarest = 0;
+        long rarestEstimate = Long.MAX_VALUE;
+        for (int candidate : set) {
+            long candidateEstimate = estimate(candidate);
+            if (candidateEstimate < rarestEstimate) {
+                rarest = candidate;
+                rarestEstimate = candidateEstimate;
+            }
+        }
+        return rarest;
+    }
+
+    private int index(int row, int id) {
+        // Для каждой строки своя хеш-функция: перемешивание id вместе с номером строки
+        int hash = (id + row * 0x9E3779B9) * 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return row * (mask + 1) + (hash & mask);
+    }
+}
@@ -1,27 +1,84 @@
 package manager.history;
 
+import collection.IntIntHashMap;
+import collection.IntObjectHashMap;
+import collection.IntObjectMap;
 import model.Task;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
 
 public class InMemoryHistoryManager implements HistoryManager {
 
-    private final HashMap<Integer, Node> history = new HashMap<>();
+    private static final int NONE = -1;
+    private static final int DEFAULT_SLOTS = 16;
 
-    private Node last;
+    // Узлы списка лежат в параллельных массивах и связаны номерами ячеек, а не ссылками.
+    // История хранит только id, а сами задачи берет у resolver при чтении, поэтому не удерживает
+    // устаревшие версии и всегда отдает актуальные
+    private final IntIntHashMap slots = new IntIntHashMap(); // <taskId, slot>
+    private int[] ids = new int[DEFAULT_SLOTS];
+    private int[] prev = new int[DEFAULT_SLOTS];
+    private int[] next = new int[DEFAULT_SLOTS];
+    private long[] viewedAt = new long[DEFAULT_SLOTS];
+    private int allocated; // ячейки правее ни разу не использовались
+    private int free = NONE; // освободившиеся ячейки, связанные через next
 
-    private static class Node {
-        Node prev;
-        Node next;
-        Task value;
+    // Список упорядочен по времени просмотра: в голове самый давний, вытесняется первым
+    private final int capacity;
+    private final long ttlMillis; // 0 — просмотры не устаревают
+    private final Clock clock;
 
-        public Node(Node prev, Node next, Task task) {
-            this.prev = prev;
-            this.next = next;
-            this.value = task;
+    private int first = NONE;
+    private int last = NONE;
+
+    // Без resolver история сама хранит последнюю просмотренную версию каждой задачи
+    private IntFunction<Task> resolver;
+    private LongSupplier resolverVersion;
+    private IntObjectMap<Task> viewed = new IntObjectHashMap<>();
+
+    // Неизменяемый снимок истории; сбрасывается при изменении ее состава или порядка, а также
+    // при новой версии задачи в самой истории или смене версии источника resolver
+    private List<Task> snapshot;
+    private long snapshotVersion;
+
+    public InMemoryHistoryManager() {
+        this(Integer.MAX_VALUE, null);
+    }
+
+    public InMemoryHistoryManager(int capacity, Duration ttl) {
+        this(capacity, ttl, Clock.systemUTC());
+    }
+
+    public InMemoryHistoryManager(int capacity, Duration ttl, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        if (ttl != null && (ttl.isNegative() || ttl.isZero())) {
+            throw new IllegalArgumentException("Ttl must be positive.");
         }
+        this.capacity = capacity;
+        this.ttlMillis = ttl == null ? 0 : ttl.toMillis();
+        this.clock = clock;
+    }
+
+    // Без версии источника список разрешается заново при каждом чтении
+    @Override
+    public void setResolver(IntFunction<Task> resolver) {
+        setResolver(resolver, null);
+    }
+
+    @Override
+    public void setResolver(IntFunction<Task> resolver, LongSupplier version) {
+        this.resolver = resolver;
+        this.resolverVersion = version;
+        viewed = null;
+        snapshot = null;
     }
 
     @Override
@@ -29,50 +86,127 @@ public class InMemoryHistoryManager implements HistoryManager {
         if (task == null) {
             return;
         }
-        remove(task.getId());
-        putLast(task);
-        history.put(task.getId(), last);
+        int id = task.getId();
+        if (viewed != null && viewed.put(id, task) != task) {
+            snapshot = null;
+        }
+        if (last != NONE && ids[last] == id) {
+            // Повторный просмотр последней задачи порядок не меняет
+            viewedAt[last] = clock.millis();
+            return;
+        }
+        unlink(id);
+        slots.put(id, putLast(id));
+        evictExpired();
+        if (slots.size() > capacity) {
+            remove(ids[first]);
+        }
     }
 
     @Override
     public void remove(int id) {
-        Node oldNode = history.remove(id);
-        if (oldNode != null) {
-            removeNode(oldNode);
+        if (unlink(id) && viewed != null) {
+            viewed.remove(id);
         }
     }
 
     @Override
     public List<Task> getHistory() {
-        return collectList();
+        evictExpired();
+        if (resolver != null) {
+            if (resolverVersion == null) {
+                return collectList(resolver);
+            }
+            // Версия читается до разрешения: изменение во время сборки списка сбросит его при следующем чтении
+            long version = resolverVersion.getAsLong();
+            if (snapshot == null || snapshotVersion != version) {
+                snapshot = collectList(resolver);
+                snapshotVersion = version;
+            }
+            return snapshot;
+        }
+        if (snapshot == null) {
+            snapshot = collectList(viewed::get);
+        }
+        return snapshot;
+    }
+
+    private void evictExpired() {
+        if (ttlMillis == 0) {
+            return;
+        }
+        long now = clock.millis();
+        while (first != NONE && now - viewedAt[first] > ttlMillis) {
+            remove(ids[first]);
+        }
     }
 
-    private void putLast(Task task) {
-        if (last == null) {
-            last = new Node(null, null, task);
+    private int putLast(int id) {
+        snapshot = null;
+        int slot = allocate();
+        ids[slot] = id;
+        viewedAt[slot] = clock.millis();
+        prev[slot] = last;
+        next[slot] = NONE;
+        if (last == NONE) {
+            first = slot;
         } else {
-            last.next = new Node(last, null, task);
-            last = last.next;
+            next[last] = slot;
         }
+        last = slot;
+        return slot;
     }
 
-    private void removeNode(Node node) {
-        if (last == node) {
-            last = last.prev;
+    private boolean unlink(int id) {
+        int slot = slots.remove(id, NONE);
+        if (slot == NONE) {
+            return false;
+        }
+        snapshot = null;
+        if (prev[slot] == NONE) {
+            first = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == NONE) {
+            last = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
         }
-        if (node.prev != null) {
-            node.prev.next = node.next;
+        next[slot] = free;
+        free = slot;
+        return true;
+    }
+
+    private int allocate() {
+        if (free != NONE) {
+            int slot = free;
+            free = next[slot];
+            return slot;
         }
-        if (node.next != null) {
-            node.next.prev = node.prev;
+        if (allocated == ids.length) {
+            int length = ids.length << 1;
+            ids = Arrays.copyOf(ids, length);
+            prev = Arrays.copyOf(prev, length);
+            next = Arrays.copyOf(next, length);
+            viewedAt = Arrays.copyOf(viewedAt, length);
         }
+        return allocated++;
     }
 
-    private List<Task> collectList() {
-        LinkedList<Task> result = new LinkedList<>();
-        for (Node node = last; node != null; node = node.prev) {
-            result.addFirst(node.value);
+    // Задачи, которых resolver уже не знает, пропускаются
+    private List<Task> collectList(IntFunction<Task> source) {
+        Task[] result = new Task[slots.size()];
+        int count = 0;
+        for (int slot = first; slot != NONE; slot = next[slot]) {
+            Task task = source.apply(ids[slot]);
+            if (task != null) {
+                result[count++] = task;
+            }
+        }
+        if (count < result.length) {
+            result = Arrays.copyOf(result, count);
         }
-        return result;
+        return Collections.unmodifiableList(Arrays.asList(result));
     }
 }
@@ -0,0 +1,281 @@
+package manager.history;
+
+import collection.IntLinkedHashSet;
+import model.Task;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+// История, которая дописывает просмотры и удаления в журнал. Запись в файл идет в отдельном потоке,
+// поэтому чтение задачи не ждет диска; порядок истории восстанавливается воспроизведением журнала
+public class LoggedHistoryManager implements HistoryManager, AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 4096;
+    // Журнал переписывается заново, когда записей в нем в COMPACTION_FACTOR раз больше, чем задач в истории
+    private static final int COMPACTION_FACTOR = 4;
+    private static final int MIN_COMPACTION_SIZE = 1024;
+    // Без новых записей поток писателя завершается и закрывает файл, а при следующей записи запускается снова
+    private static final int IDLE_POLLS = 10;
+
+    private static final char VIEW = 'V';
+    private static final char REMOVE = 'R';
+
+    private final HistoryManager historyManager;
+    private final Path logFile;
+    private final BlockingQueue<Record> records = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private volatile Thread writer;
+    private volatile boolean closed;
+    private IOException writeFailure; // ошибка записи, о которой сообщит close
+
+    // Состояние журнала: id в порядке истории и число строк в файле. Доступ только у текущего писателя
+    private final IntLinkedHashSet loggedIds = new IntLinkedHashSet();
+    private int loggedRecords;
+
+    private record Record(char type, int id) {
+    }
+
+    public LoggedHistoryManager(HistoryManager historyManager, Path logFile) {
+        this.historyManager = historyManager;
+        this.logFile = logFile;
+    }
+
+    @Override
+    public void add(Task task) {
+        historyManager.add(task);
+        if (task == null || closed) {
+            return;
+        }
+        append(new Record(VIEW, task.getId()));
+    }
+
+    @Override
+    public void remove(int id) {
+        historyManager.remove(id);
+        if (closed) {
+            return;
+        }
+        append(new Record(REMOVE, id));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public void setResolver(IntFunction<Task> resolver) {
+        historyManager.setResolver(resolver);
+    }
+
+    @Override
+    public void setResolver(IntFunction<Task> resolver, LongSupplier version) {
+        historyManager.setResolver(resolver, version);
+    }
+
+    // Воспроизводит журнал, пропуская id, которых resolver не находит. Вызывается до первой записи в историю.
+    // Последняя строка без перевода строки могла быть оборвана при аварийной остановке ("V12" -> "V1"),
+    // поэтому она не воспроизводится; на первой неразборчивой строке воспроизведение останавливается.
+    // Все, что не воспроизведено, отрезается от файла, чтобы новые записи не склеились с обрывком
+    public void restore(IntFunction<Task> resolver) throws IOException {
+        if (!Files.exists(logFile)) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(logFile);
+        int replayed = 0;
+        for (int end = indexOf(bytes, replayed); end >= 0; end = indexOf(bytes, replayed)) {
+            Record record = parse(new String(bytes, replayed, end - replayed, StandardCharsets.UTF_8));
+            if (record == null) {
+                break;
+            }
+            replayed = end + 1;
+            loggedRecords++;
+            if (record.type() == REMOVE) {
+                historyManager.remove(record.id());
+                loggedIds.remove(record.id());
+                continue;
+            }
+            Task task = resolver.apply(record.id());
+            if (task != null) {
+                historyManager.add(task);
+                loggedIds.addLast(record.id());
+            }
+        }
+        if (replayed < bytes.length) {
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(replayed);
+            }
+        }
+        if (needsCompaction()) {
+            compact();
+        }
+    }
+
+    // Дожидается записи уже принятых событий и сообщает об ошибках записи, если они были.
+    // Прерванное ожидание завершает close, а флаг прерывания сохраняется
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            Thread current;
+            while ((current = writer) != null && current.isAlive()) {
+                current.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOException failure = takeWriteFailure();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Записи не теряются: вызывающий поток ждет, только если писатель отстал на QUEUE_CAPACITY записей
+    private void append(Record record) {
+        try {
+            records.put(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        startWriter();
+    }
+
+    private void startWriter() {
+        if (!records.isEmpty() && writing.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::run, "history-log");
+            thread.setDaemon(true);
+            writer = thread;
+            thread.start();
+        }
+    }
+
+    private void run() {
+        BufferedWriter out = null;
+        try {
+            int idle = 0;
+            while (idle < IDLE_POLLS && !(closed && records.isEmpty())) {
+                Record record = records.poll(100, TimeUnit.MILLISECONDS);
+                if (record == null) {
+                    idle++;
+                    continue;
+                }
+                idle = 0;
+                if (out == null) {
+                    out = Files.newBufferedWriter(
+                            logFile,
+                            StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.APPEND
+                    );
+                }
+                write(out, record);
+                if (needsCompaction()) {
+                    out.close();
+                    out = null;
+                    compact();
+                } else if (records.isEmpty()) {
+                    // Сбрасываем на диск пачкой, когда очередь опустела
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            recordWriteFailure(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeWriter(out);
+            writing.set(false);
+        }
+        // Запись могла прийти после выхода из цикла, но до сброса флага, и тогда осталась бы без писателя
+        startWriter();
+    }
+
+    private void write(BufferedWriter out, Record record) throws IOException {
+        out.write(record.type());
+        out.write(Integer.toString(record.id()));
+        out.write('\n');
+        loggedRecords++;
+        if (record.type() == VIEW) {
+            loggedIds.addLast(record.id());
+        } else {
+            loggedIds.remove(record.id());
+        }
+    }
+
+    private boolean needsCompaction() {
+        return loggedRecords > Math.max(MIN_COMPACTION_SIZE, COMPACTION_FACTOR * loggedIds.size());
+    }
+
+    // Журнал заменяется целиком через временный файл, чтобы при сбое остался старый или новый вариант
+    private void compact() throws IOException {
+        Path temp = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (int id : loggedIds.toArray()) {
+                out.write(VIEW);
+                out.write(Integer.toString(id));
+                out.write('\n');
+            }
+        }
+        Files.move(temp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        loggedRecords = loggedIds.size();
+    }
+
+    private static Record parse(String line) {
+        if (line.length() < 2 || (line.charAt(0) != VIEW && line.charAt(0) != REMOVE)) {
+            return null;
+        }
+        try {
+            return new Record(line.charAt(0), Integer.parseInt(line.substring(1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int indexOf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void closeWriter(BufferedWriter out) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            recordWriteFailure(e);
+        }
+    }
+
+    // Записи, на которых случилась ошибка, потеряны; первая ошибка сохраняется, остальные добавляются к ней
+    private synchronized void recordWriteFailure(IOException e) {
+        if (writeFailure == null) {
+            writeFailure = e;
+        } else {
+            writeFailure.addSuppressed(e);
+        }
+    }
+
+    private synchronized IOException takeWriteFailure() {
+        IOException failure = writeFailure;
+        writeFailure = null;
+        return failure;
+    }
+}
@@ -0,0 +1,226 @@
+package manager.schedule;
+
+import collection.IntObjectHashMap;
+import collection.IntObjectMap;
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+// Календарь занятости: по биту на минуту, страницы по дням создаются при первой записи в день
+// и освобождаются, когда день пустеет. Для каждой занятой минуты хранится id задачи-владельца,
+// поэтому проверка пересечения сводится к поиску установленного бита и одному точному сравнению.
+// Упорядоченные выборки обслуживает вложенный TreeScheduleIndex. Индекс не потокобезопасен
+public class BitmapScheduleIndex implements ScheduleIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int WORDS_PER_DAY = (MINUTES_PER_DAY + 63) / 64;
+    // Более длинные интервалы не раскладываются по страницам, чтобы не расходовать память на годы вперед
+    private static final long MAX_PAGED_MINUTES = 7 * MINUTES_PER_DAY;
+
+    private final TreeScheduleIndex ordered = new TreeScheduleIndex();
+    private final TreeScheduleIndex unpaged = new TreeScheduleIndex();
+    private final IntObjectMap<DayPage> pages = new IntObjectHashMap<>(); // <epochDay, DayPage>
+    private final IntObjectMap<Task> paged = new IntObjectHashMap<>(); // <taskId, Task>
+
+    private static final class DayPage {
+        final long[] occupied = new long[WORDS_PER_DAY];
+        // Минута делится несколькими задачами только на неполных граничных минутах
+        final long[] shared = new long[WORDS_PER_DAY];
+        final int[] owners = new int[MINUTES_PER_DAY];
+        int count;
+
+        boolean isSet(long[] words, int minute) {
+            return (words[minute >>> 6] & (1L << minute)) != 0;
+        }
+
+        void set(long[] words, int minute) {
+            words[minute >>> 6] |= 1L << minute;
+        }
+
+        void clear(long[] words, int minute) {
+            words[minute >>> 6] &= ~(1L << minute);
+        }
+
+        // Первая занятая минута в [from, to) или -1
+        int nextOccupied(int from, int to) {
+            int word = from >>> 6;
+            long bits = occupied[word] & (-1L << from);
+            while (true) {
+                if (bits != 0) {
+                    int minute = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    return minute < to ? minute : -1;
+                }
+                if (++word >= WORDS_PER_DAY || word << 6 >= to) {
+                    return -1;
+                }
+                bits = occupied[word];
+            }
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        remove(task.getId());
+        ordered.add(task);
+        if (!ScheduleIndex.isScheduled(task)) {
+            return;
+        }
+        long first = firstMinute(task.getStartTime());
+        long end = endMinute(task.getStartTime(), task.getEndTime());
+        if (!isPageable(first, end)) {
+            unpaged.add(task);
+            return;
+        }
+        paged.put(task.getId(), task);
+        for (long minute = first; minute < end; minute++) {
+            DayPage page = pages.computeIfAbsent(day(minute), day -> new DayPage());
+            int m = minuteOfDay(minute);
+            if (page.isSet(page.occupied, m)) {
+                page.set(page.shared, m);
+            } else {
+                page.set(page.occupied, m);
+                page.owners[m] = task.getId();
+                page.count++;
+            }
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        Task task = paged.remove(id);
+        ordered.remove(id);
+        unpaged.remove(id);
+        if (task == null) {
+            return;
+        }
+        long end = endMinute(task.getStartTime(), task.getEndTime());
+        for (long minute = firstMinute(task.getStartTime()); minute < end; minute++) {
+            int day = day(minute);
+            DayPage page = pages.get(day);
+            if (page == null) {
+                continue;
+            }
+            int m = minuteOfDay(minute);
+            if (page.isSet(page.shared, m)) {
+                resolveShared(page, minute);
+            } else if (page.owners[m] == id) {
+                page.clear(page.occupied, m);
+                page.count--;
+            }
+            if (page.count == 0) {
+                pages.remove(day);
+            }
+        }
+    }
+
+    @Override
+    public boolean isIntersect(LocalDateTime start, LocalDateTime end, IntPredicate excluded) {
+        long first = firstMinute(start);
+        long last = endMinute(start, end);
+        if (!isPageable(first, last)) {
+            return ordered.isIntersect(start, end, excluded);
+        }
+        if (unpaged.isIntersect(start, end, excluded)) {
+            return true;
+        }
+        long minute = first;
+        while (minute < last) {
+            long dayStart = Math.floorDiv(minute, MINUTES_PER_DAY) * MINUTES_PER_DAY;
+            int to = (int) Math.min(MINUTES_PER_DAY, last - dayStart);
+            DayPage page = pages.get(day(minute));
+            int found = page == null ? -1 : page.nextOccupied(minuteOfDay(minute), to);
+            if (found < 0) {
+                minute = dayStart + to;
+                continue;
+            }
+            if (page.isSet(page.shared, found)) {
+                // Несколько владельцев у граничной минуты — точный ответ дает упорядоченный индекс
+                return ordered.isIntersect(start, end, excluded);
+            }
+            Task owner = paged.get(page.owners[found]);
+            if (!excluded.test(owner.getId()) && overlaps(owner, start, end)) {
+                return true;
+            }
+            // Остальные минуты владельца можно пропустить, кроме последней: ее могут делить с соседом
+            long ownerEnd = endMinute(owner.getStartTime(), owner.getEndTime());
+            minute = Math.max(dayStart + found + 1, ownerEnd - 1);
+        }
+        return false;
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return ordered.getTasks();
+    }
+
+    @Override
+    public List<Task> getTasks(LocalDateTime from, LocalDateTime to) {
+        return ordered.getTasks(from, to);
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(
+            Duration duration,
+            LocalDateTime notBefore,
+            LocalDateTime notAfter,
+            int count
+    ) {
+        return ordered.findFreeSlots(duration, notBefore, notAfter, count);
+    }
+
+    // Вызывается после удаления задачи из упорядоченного индекса: владельцы минуты пересчитываются заново
+    private void resolveShared(DayPage page, long minute) {
+        int m = minuteOfDay(minute);
+        LocalDateTime from = LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+        List<Task> owners = ordered.getTasks(from, from.plusMinutes(1)).stream()
+                .filter(task -> paged.containsKey(task.getId()))
+                .toList();
+        if (owners.size() > 1) {
+            return;
+        }
+        page.clear(page.shared, m);
+        if (owners.isEmpty()) {
+            page.clear(page.occupied, m);
+            page.count--;
+        } else {
+            page.owners[m] = owners.get(0).getId();
+        }
+    }
+
+    // Та же семантика, что и у TreeScheduleIndex: полуинтервалы, касание границами не пересечение
+    private static boolean overlaps(Task task, LocalDateTime start, LocalDateTime end) {
+        return start.isBefore(task.getEndTime()) && task.getStartTime().isBefore(end);
+    }
+
+    private static boolean isPageable(long first, long end) {
+        return end - first <= MAX_PAGED_MINUTES
+                && Math.floorDiv(first, MINUTES_PER_DAY) >= Integer.MIN_VALUE
+                && Math.floorDiv(end, MINUTES_PER_DAY) <= Integer.MAX_VALUE;
+    }
+
+    private static long firstMinute(LocalDateTime start) {
+        return Math.floorDiv(start.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    // Исключительная граница занятых минут; нулевой интервал занимает минуту, в которую попадает
+    private static long endMinute(LocalDateTime start, LocalDateTime end) {
+        long seconds = end.toEpochSecond(ZoneOffset.UTC);
+        long minute = Math.floorDiv(seconds, 60);
+        if (Math.floorMod(seconds, 60) != 0 || end.getNano() != 0) {
+            minute++;
+        }
+        return Math.max(minute, firstMinute(start) + 1);
+    }
+
+    private static int day(long minute) {
+        return (int) Math.floorDiv(minute, MINUTES_PER_DAY);
+    }
+
+    private static int minuteOfDay(long minute) {
+        return Math.floorMod(minute, MINUTES_PER_DAY);
+    }
+}
@@ -0,0 +1,48 @@
+package manager.schedule;
+
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+public interface ScheduleIndex {
+
+    void add(Task task);
+
+    // Добавляет задачи с различными id, например при загрузке; реализации могут строить индекс разом
+    default void addAll(Collection<? extends Task> tasks) {
+        tasks.forEach(this::add);
+    }
+
+    void remove(int id);
+
+    // Проверяет пересечение с интервалами, кроме принадлежащих задачам из excluded
+    boolean isIntersect(LocalDateTime start, LocalDateTime end, IntPredicate excluded);
+
+    default boolean isIntersect(LocalDateTime start, LocalDateTime end, Integer excludeId) {
+        return isIntersect(start, end, id -> excludeId != null && id == excludeId);
+    }
+
+    default boolean isIntersect(Task task) {
+        if (!isScheduled(task)) {
+            return false;
+        }
+        return isIntersect(task.getStartTime(), task.getEndTime(), task.getId());
+    }
+
+    List<Task> getTasks();
+
+    // Задачи, интервалы которых пересекаются с окном [from, to); null означает открытую границу
+    List<Task> getTasks(LocalDateTime from, LocalDateTime to);
+
+    // Начала до count свободных интервалов длины duration внутри [notBefore, notAfter),
+    // по одному на каждый промежуток расписания; notAfter == null означает открытую границу
+    List<LocalDateTime> findFreeSlots(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter, int count);
+
+    static boolean isScheduled(Task task) {
+        return task.getStartTime() != null && task.getDuration() != null;
+    }
+}
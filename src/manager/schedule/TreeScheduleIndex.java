@@ -0,0 +1,222 @@
+package manager.schedule;
+
+import collection.IntObjectHashMap;
+import collection.IntObjectMap;
+import collection.PersistentTreeMap;
+import collection.VersionedMap;
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+public class TreeScheduleIndex implements ScheduleIndex {
+
+    // Интервалы в индексе попарно не пересекаются (это гарантирует проверка при вставке),
+    // поэтому для поиска пересечения достаточно ближайшего слева соседа, а не полного обхода
+    private final VersionedMap<Slot, Task> schedule = new VersionedMap<>();
+    private final IntObjectMap<Slot> slots; // <taskId, Slot>
+
+    // Границы хранятся примитивами (секунда эпохи в UTC и наносекунды) вместо двух LocalDateTime:
+    // ключ занимает 40 байт вместо ~170, а сравнение не создает объектов
+    private record Slot(
+            long startSecond,
+            int startNano,
+            long endSecond,
+            int endNano,
+            int id
+    ) implements Comparable<Slot> {
+
+        static Slot of(Task task) {
+            LocalDateTime start = task.getStartTime();
+            LocalDateTime end = task.getEndTime();
+            return new Slot(epochSecond(start), start.getNano(), epochSecond(end), end.getNano(), task.getId());
+        }
+
+        // Граница, все слоты левее которой начинаются строго раньше time
+        static Slot before(LocalDateTime time) {
+            return new Slot(epochSecond(time), time.getNano(), Long.MIN_VALUE, 0, Integer.MIN_VALUE);
+        }
+
+        boolean startsBefore(LocalDateTime time) {
+            return compare(startSecond, startNano, epochSecond(time), time.getNano()) < 0;
+        }
+
+        boolean endsAfter(LocalDateTime time) {
+            return compare(endSecond, endNano, epochSecond(time), time.getNano()) > 0;
+        }
+
+        @Override
+        public int compareTo(Slot o) {
+            int result = compare(startSecond, startNano, o.startSecond, o.startNano);
+            if (result == 0) {
+                result = compare(endSecond, endNano, o.endSecond, o.endNano);
+            }
+            return result != 0 ? result : Integer.compare(id, o.id);
+        }
+
+        private static int compare(long second, int nano, long otherSecond, int otherNano) {
+            int result = Long.compare(second, otherSecond);
+            return result != 0 ? result : Integer.compare(nano, otherNano);
+        }
+
+        private static long epochSecond(LocalDateTime time) {
+            return time.toEpochSecond(ZoneOffset.UTC);
+        }
+    }
+
+    public TreeScheduleIndex() {
+        this(new IntObjectHashMap<>());
+    }
+
+    private TreeScheduleIndex(IntObjectMap<Slot> slots) {
+        this.slots = slots;
+    }
+
+    // Индекс для конкурентного доступа: чтение без блокировок, запись пересекающихся
+    // интервалов должна быть упорядочена вызывающим кодом
+    public static TreeScheduleIndex concurrent() {
+        return new TreeScheduleIndex(IntObjectMap.synchronizedMap(new IntObjectHashMap<>()));
+    }
+
+    @Override
+    public void add(Task task) {
+        Slot oldSlot = slots.remove(task.getId());
+        Slot newSlot = ScheduleIndex.isScheduled(task) ? Slot.of(task) : null;
+        // Замена старой версии публикуется одной записью, чтобы читатели не видели промежуточного состояния
+        schedule.update(map -> {
+            var result = oldSlot == null ? map : map.remove(oldSlot);
+            return newSlot == null ? result : result.put(newSlot, task);
+        });
+        if (newSlot != null) {
+            slots.put(task.getId(), newSlot);
+        }
+    }
+
+    // Пустой индекс строится одним проходом по отсортированным интервалам, а не вставками по одной
+    @Override
+    public void addAll(Collection<? extends Task> tasks) {
+        if (!schedule.isEmpty()) {
+            ScheduleIndex.super.addAll(tasks);
+            return;
+        }
+        IntObjectMap<Task> byId = new IntObjectHashMap<>(tasks.size());
+        List<Slot> keys = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (ScheduleIndex.isScheduled(task)) {
+                Slot slot = Slot.of(task);
+                keys.add(slot);
+                byId.put(slot.id(), task);
+                slots.put(slot.id(), slot);
+            }
+        }
+        Slot[] sorted = keys.toArray(new Slot[0]);
+        Arrays.parallelSort(sorted);
+        List<Slot> sortedKeys = Arrays.asList(sorted);
+        List<Task> values = new ArrayList<>(sorted.length);
+        for (Slot slot : sorted) {
+            values.add(byId.get(slot.id()));
+        }
+        PersistentTreeMap<Slot, Task> built = PersistentTreeMap.ofSorted(sortedKeys, values);
+        schedule.update(map -> built);
+    }
+
+    @Override
+    public void remove(int id) {
+        Slot slot = slots.remove(id);
+        if (slot != null) {
+            schedule.remove(slot);
+        }
+    }
+
+    @Override
+    public boolean isIntersect(LocalDateTime start, LocalDateTime end, IntPredicate excluded) {
+        Iterator<Map.Entry<Slot, Task>> candidates = schedule.snapshot().headEntriesDescending(Slot.before(end));
+        while (candidates.hasNext()) {
+            Slot slot = candidates.next().getKey();
+            if (excluded.test(slot.id())) {
+                continue;
+            }
+            // Начало соседа раньше end гарантировано границей обхода, остается сравнить его конец
+            return slot.endsAfter(start);
+        }
+        return false;
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return schedule.values();
+    }
+
+    @Override
+    public List<Task> getTasks(LocalDateTime from, LocalDateTime to) {
+        PersistentTreeMap<Slot, Task> snapshot = schedule.snapshot();
+        List<Task> result = new ArrayList<>();
+        Iterator<Task> tail;
+        if (from == null) {
+            tail = snapshot.values().iterator();
+        } else {
+            // Из начавшихся раньше окна в него может заходить только ближайший сосед
+            Iterator<Map.Entry<Slot, Task>> previous = snapshot.headEntriesDescending(Slot.before(from));
+            if (previous.hasNext()) {
+                Map.Entry<Slot, Task> entry = previous.next();
+                if (entry.getKey().endsAfter(from) && (to == null || entry.getKey().startsBefore(to))) {
+                    result.add(entry.getValue());
+                }
+            }
+            tail = snapshot.tailValues(Slot.before(from), true);
+        }
+        while (tail.hasNext()) {
+            Task task = tail.next();
+            if (to != null && !task.getStartTime().isBefore(to)) {
+                break;
+            }
+            result.add(task);
+        }
+        return result;
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(
+            Duration duration,
+            LocalDateTime notBefore,
+            LocalDateTime notAfter,
+            int count
+    ) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Duration can't be negative.");
+        }
+        PersistentTreeMap<Slot, Task> snapshot = schedule.snapshot();
+        List<LocalDateTime> result = new ArrayList<>();
+        // cursor — начало текущего промежутка между занятыми интервалами
+        LocalDateTime cursor = notBefore;
+        Iterator<Map.Entry<Slot, Task>> previous = snapshot.headEntriesDescending(Slot.before(notBefore));
+        if (previous.hasNext()) {
+            LocalDateTime previousEnd = previous.next().getValue().getEndTime();
+            if (cursor.isBefore(previousEnd)) {
+                cursor = previousEnd;
+            }
+        }
+        Iterator<Task> tail = snapshot.tailValues(Slot.before(notBefore), true);
+        while (result.size() < count && fits(cursor.plus(duration), notAfter)) {
+            if (!tail.hasNext()) {
+                result.add(cursor);
+                break;
+            }
+            Task task = tail.next();
+            if (!cursor.plus(duration).isAfter(task.getStartTime())) {
+                result.add(cursor);
+            }
+            if (cursor.isBefore(task.getEndTime())) {
+                cursor = task.getEndTime();
+            }
+        }
+        return result;
+    }
+
+    private static boolean fits(LocalDateTime end, LocalDateTime notAfter) {
+        return notAfter == null || !end.isAfter(notAfter);
+    }
+}
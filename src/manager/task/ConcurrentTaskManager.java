@@ -0,0 +1,217 @@
+package manager.task;
+
+import collection.IntObjectHashMap;
+import collection.IntObjectMap;
+import manager.history.HistoryManager;
+import manager.schedule.ScheduleIndex;
+import manager.schedule.TreeScheduleIndex;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Менеджер для конкурентного доступа: чтение идет без блокировок по опубликованным версиям хранилищ,
+// запись захватывает только полосы блокировок, относящиеся к изменяемым сущностям
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    // Виды ключей, распределяемых по полосам
+    private static final int ENTITY = 0;
+    private static final int DAY = 1;
+    private static final int EPIC = 2;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager, IntObjectMap.synchronizedMap(new IntObjectHashMap<>()), TreeScheduleIndex.concurrent());
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Task upsertTask(Task task) {
+        return write(() -> {
+            BitSet stripes = new BitSet(STRIPES);
+            if (task.getId() != null) {
+                addStripe(stripes, ENTITY, task.getId());
+                addDays(stripes, tasks.get(task.getId()));
+            }
+            addDays(stripes, task);
+            return stripes;
+        }, () -> super.upsertTask(task));
+    }
+
+    @Override
+    public Epic upsertEpic(Epic epic) {
+        return write(() -> {
+            BitSet stripes = new BitSet(STRIPES);
+            if (epic.getId() != null) {
+                addStripe(stripes, ENTITY, epic.getId());
+                addStripe(stripes, EPIC, epic.getId());
+            }
+            return stripes;
+        }, () -> super.upsertEpic(epic));
+    }
+
+    @Override
+    public SubTask upsertSubTask(SubTask subTask) {
+        return write(() -> {
+            BitSet stripes = new BitSet(STRIPES);
+            if (subTask.getId() != null) {
+                addStripe(stripes, ENTITY, subTask.getId());
+                addSubTask(stripes, subTasks.get(subTask.getId()));
+            }
+            addSubTask(stripes, subTask);
+            return stripes;
+        }, () -> super.upsertSubTask(subTask));
+    }
+
+    // Пакет проверяется по всему расписанию, поэтому захватываются все полосы
+    @Override
+    public List<Task> upsertAll(Collection<? extends Task> batch) {
+        return write(ConcurrentTaskManager::allStripes, () -> super.upsertAll(batch));
+    }
+
+    @Override
+    public void removeTasks() {
+        write(ConcurrentTaskManager::allStripes, () -> {
+            super.removeTasks();
+            return null;
+        });
+    }
+
+    @Override
+    public void removeTask(int taskId) {
+        write(() -> {
+            BitSet stripes = new BitSet(STRIPES);
+            addStripe(stripes, ENTITY, taskId);
+            addDays(stripes, tasks.get(taskId));
+            return stripes;
+        }, () -> {
+            super.removeTask(taskId);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeEpics() {
+        write(ConcurrentTaskManager::allStripes, () -> {
+            super.removeEpics();
+            return null;
+        });
+    }
+
+    @Override
+    public void removeEpic(int epicId) {
+        write(() -> {
+            BitSet stripes = new BitSet(STRIPES);
+            addStripe(stripes, ENTITY, epicId);
+            addStripe(stripes, EPIC, epicId);
+            Epic epic = epics.get(epicId);
+            if (epic != null) {
+                for (int subTaskId : epic.getSubTasks()) {
+                    addStripe(stripes, ENTITY, subTaskId);
+                    addDays(stripes, subTasks.get(subTaskId));
+                }
+            }
+            return stripes;
+        }, () -> {
+            super.removeEpic(epicId);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeSubTasks() {
+        write(ConcurrentTaskManager::allStripes, () -> {
+            super.removeSubTasks();
+            return null;
+        });
+    }
+
+    @Override
+    public void removeSubTask(int subTaskId) {
+        write(() -> {
+            BitSet stripes = new BitSet(STRIPES);
+            addStripe(stripes, ENTITY, subTaskId);
+            addSubTask(stripes, subTasks.get(subTaskId));
+            return stripes;
+        }, () -> {
+            super.removeSubTask(subTaskId);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAll(Collection<Integer> ids) {
+        write(ConcurrentTaskManager::allStripes, () -> {
+            super.removeAll(ids);
+            return null;
+        });
+    }
+
+    // Захватывает полосы в порядке возрастания номера, что исключает взаимные блокировки.
+    // Набор полос вычисляется по текущему состоянию, поэтому после захвата он проверяется повторно
+    private <T> T write(Supplier<BitSet> stripesSupplier, Supplier<T> action) {
+        while (true) {
+            BitSet held = stripesSupplier.get();
+            for (int i = held.nextSetBit(0); i >= 0; i = held.nextSetBit(i + 1)) {
+                locks[i].lock();
+            }
+            try {
+                BitSet required = stripesSupplier.get();
+                required.andNot(held);
+                if (required.isEmpty()) {
+                    return action.get();
+                }
+            } finally {
+                for (int i = held.nextSetBit(0); i >= 0; i = held.nextSetBit(i + 1)) {
+                    locks[i].unlock();
+                }
+            }
+        }
+    }
+
+    private static BitSet allStripes() {
+        BitSet stripes = new BitSet(STRIPES);
+        stripes.set(0, STRIPES);
+        return stripes;
+    }
+
+    private static void addSubTask(BitSet stripes, SubTask subTask) {
+        if (subTask == null) {
+            return;
+        }
+        addStripe(stripes, EPIC, subTask.getEpicId());
+        addDays(stripes, subTask);
+    }
+
+    // Пересекающиеся интервалы всегда делят хотя бы один день, поэтому их запись упорядочена
+    private static void addDays(BitSet stripes, Task task) {
+        if (task == null || !ScheduleIndex.isScheduled(task)) {
+            return;
+        }
+        long firstDay = task.getStartTime().toLocalDate().toEpochDay();
+        long lastDay = task.getEndTime().toLocalDate().toEpochDay();
+        if (lastDay - firstDay >= STRIPES) {
+            stripes.set(0, STRIPES);
+            return;
+        }
+        for (long day = firstDay; day <= lastDay; day++) {
+            addStripe(stripes, DAY, day);
+        }
+    }
+
+    private static void addStripe(BitSet stripes, int kind, long key) {
+        long hash = (key * 31 + kind) * 0x9E3779B97F4A7C15L;
+        stripes.set((int) (hash >>> (Long.SIZE - STRIPE_BITS)));
+    }
+}
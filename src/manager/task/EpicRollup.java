@@ -0,0 +1,60 @@
+package manager.task;
+
+import manager.schedule.ScheduleIndex;
+import model.SubTask;
+import model.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Агрегаты подзадач эпика, обновляемые приращениями при привязке и отвязке подзадачи
+class EpicRollup {
+
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+    private int size;
+
+    // Мультимножества времен начала и окончания: <время, количество подзадач>
+    private final NavigableMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final NavigableMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+
+    void add(SubTask subTask) {
+        size++;
+        statusCounts[subTask.getStatus().ordinal()]++;
+        if (ScheduleIndex.isScheduled(subTask)) {
+            startTimes.merge(subTask.getStartTime(), 1, Integer::sum);
+            endTimes.merge(subTask.getEndTime(), 1, Integer::sum);
+        }
+    }
+
+    void remove(SubTask subTask) {
+        size--;
+        statusCounts[subTask.getStatus().ordinal()]--;
+        if (ScheduleIndex.isScheduled(subTask)) {
+            decrement(startTimes, subTask.getStartTime());
+            decrement(endTimes, subTask.getEndTime());
+        }
+    }
+
+    TaskStatus getStatus() {
+        if (size == 0 || statusCounts[TaskStatus.NEW.ordinal()] == size) {
+            return TaskStatus.NEW;
+        } else if (statusCounts[TaskStatus.DONE.ordinal()] == size) {
+            return TaskStatus.DONE;
+        } else {
+            return TaskStatus.IN_PROGRESS;
+        }
+    }
+
+    LocalDateTime getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    LocalDateTime getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    private static void decrement(NavigableMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+    }
+}
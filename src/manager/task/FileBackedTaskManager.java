@@ -1,143 +1,293 @@
 package manager.task;
 
+import collection.IntHashSet;
+import collection.IntObjectHashMap;
+import collection.IntObjectMap;
+import collection.PersistentIntMap;
 import manager.Managers;
+import manager.event.TaskEvent;
 import manager.exception.ManagerLoadException;
 import manager.exception.ManagerSaveException;
-import manager.history.HistoryManager;
-import manager.task.converter.TaskConverter;
-import model.Epic;
-import model.SubTask;
+import manager.history.LoggedHistoryManager;
+import manager.task.storage.Durability;
+import manager.task.storage.PagedTaskFile;
+import manager.task.storage.StorageMode;
+import manager.task.storage.StorageOptions;
+import manager.task.storage.TaskFormat;
+import manager.task.storage.WriteAheadLog;
 import model.Task;
-import model.TaskType;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import static manager.task.converter.TaskConverter.*;
+public class FileBackedTaskManager extends PersistentTaskManager implements AutoCloseable {
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+    // Журнал сжимается в снимок, когда записей в нем в COMPACTION_FACTOR раз больше, чем задач
+    private static final int COMPACTION_FACTOR = 4;
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+
+    // Снимки пишутся в фоне одним потоком на все менеджеры
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "wal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final File backedFile;
+    private final TaskFormat format;
+    private final LoggedHistoryManager historyLog;
+    private final WriteAheadLog writeAheadLog; // null вне режима WRITE_AHEAD_LOG
+    private Future<?> compaction; // снимок, который пишется сейчас
+    private final PagedTaskFile pagedFile; // null вне режима PAGED
+    private final boolean forcePages;
+    private final IntHashSet dirtyPages = new IntHashSet(); // страницы, задачи которых изменила текущая операция
 
-    private FileBackedTaskManager(HistoryManager historyManager, File backedFile) {
+    private FileBackedTaskManager(
+            LoggedHistoryManager historyManager,
+            File backedFile,
+            TaskFormat format,
+            WriteAheadLog writeAheadLog,
+            PagedTaskFile pagedFile,
+            boolean forcePages
+    ) {
         super(historyManager);
         this.backedFile = backedFile;
+        this.format = format;
+        this.historyLog = historyManager;
+        this.writeAheadLog = writeAheadLog;
+        this.pagedFile = pagedFile;
+        this.forcePages = forcePages;
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), file);
-        loadFromFile(manager, file);
-        return manager;
+        return loadFromFile(file, StorageOptions.defaults());
     }
 
-    @Override
-    public Task upsertTask(Task task) {
-        Task result = super.upsertTask(task);
-        save();
-        return result;
-    }
-
-    @Override
-    public Epic upsertEpic(Epic epic) {
-        Epic result = super.upsertEpic(epic);
-        save();
-        return result;
+    public static FileBackedTaskManager loadFromFile(File file, StorageOptions options) {
+        // Журналы лежат рядом с файлом задач: tasks.csv -> tasks.csv.history, tasks.csv.wal
+        LoggedHistoryManager history = new LoggedHistoryManager(
+                Managers.getDefaultHistory(),
+                sibling(file, ".history")
+        );
+        TaskFormat format = options.format().create();
+        WriteAheadLog writeAheadLog = options.mode() == StorageMode.WRITE_AHEAD_LOG
+                ? new WriteAheadLog(
+                        sibling(file, ".wal"),
+                        format,
+                        options.durability(),
+                        options.flushInterval(),
+                        options.flushBatchSize()
+                )
+                : null;
+        PagedTaskFile pagedFile = options.mode() == StorageMode.PAGED ? new PagedTaskFile(file.toPath(), format) : null;
+        FileBackedTaskManager manager = new FileBackedTaskManager(
+                history,
+                file,
+                format,
+                writeAheadLog,
+                pagedFile,
+                options.durability() == Durability.SYNC
+        );
+        loadFromFile(manager, file);
+        return manager;
     }
 
+    // Дожидается записи журналов и снимка
     @Override
-    public SubTask upsertSubTask(SubTask subTask) {
-        SubTask result = super.upsertSubTask(subTask);
-        save();
-        return result;
+    public void close() {
+        if (compaction != null) {
+            awaitCompaction();
+        }
+        try {
+            try {
+                historyLog.close();
+            } finally {
+                if (writeAheadLog != null) {
+                    writeAheadLog.close();
+                }
+                if (pagedFile != null) {
+                    pagedFile.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
     }
 
+    // В режиме журнала события изменений превращаются в записи, в страничном — помечают страницы
+    // для перезаписи. Производные поля эпиков не сохраняются, потому что пересчитываются при загрузке
     @Override
-    public void removeTasks() {
-        super.removeTasks();
-        save();
+    protected void publish(TaskEvent.Type type, Task before, Task after) {
+        super.publish(type, before, after);
+        if (pagedFile != null) {
+            switch (type) {
+                case CREATED, UPDATED -> dirtyPages.add(PagedTaskFile.pageOf(after.getId()));
+                case REMOVED -> dirtyPages.add(PagedTaskFile.pageOf(before.getId()));
+                case EPIC_RECALCULATED -> {
+                }
+            }
+            return;
+        }
+        if (writeAheadLog == null) {
+            return;
+        }
+        try {
+            switch (type) {
+                case CREATED, UPDATED -> writeAheadLog.appendUpsert(after);
+                case REMOVED -> writeAheadLog.appendRemove(before.getId());
+                case EPIC_RECALCULATED -> {
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
     }
 
     @Override
-    public void removeTask(int taskId) {
-        super.removeTask(taskId);
-        save();
+    protected void persist() {
+        if (pagedFile != null) {
+            persistPages();
+            return;
+        }
+        if (writeAheadLog == null) {
+            writeSnapshot(List.of(getTasks(), getEpics(), getSubTasks()), false);
+            return;
+        }
+        try {
+            writeAheadLog.commit();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
+        if (compaction != null && compaction.isDone()) {
+            awaitCompaction();
+        }
+        int size = tasks.size() + epics.size() + subTasks.size();
+        if (compaction == null && writeAheadLog.size() > Math.max(MIN_COMPACTION_RECORDS, COMPACTION_FACTOR * size)) {
+            startCompaction();
+        }
     }
 
-    @Override
-    public void removeEpics() {
-        super.removeEpics();
-        save();
+    // Страница переписывается целиком из текущих версий хранилищ: все задачи ее диапазона id
+    private void persistPages() {
+        try {
+            for (int page : dirtyPages) {
+                int from = PagedTaskFile.firstId(page);
+                int to = PagedTaskFile.firstId(page + 1);
+                List<Task> content = new ArrayList<>();
+                collectRange(tasks.snapshot(), from, to, content);
+                collectRange(epics.snapshot(), from, to, content);
+                collectRange(subTasks.snapshot(), from, to, content);
+                pagedFile.writePage(page, content);
+            }
+            pagedFile.commit(forcePages);
+            // При ошибке страницы остаются помеченными и будут переписаны следующей операцией
+            dirtyPages.clear();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
     }
 
-    @Override
-    public void removeEpic(int epicId) {
-        super.removeEpic(epicId);
-        save();
+    private static void collectRange(PersistentIntMap<? extends Task> map, int from, int to, List<Task> result) {
+        Iterator<? extends Task> values = map.tailValues(from, true);
+        while (values.hasNext()) {
+            Task task = values.next();
+            if (task.getId() >= to) {
+                break;
+            }
+            result.add(task);
+        }
     }
 
-    @Override
-    public void removeSubTasks() {
-        super.removeSubTasks();
-        save();
+    // Новые изменения уходят в следующий сегмент, а снимок состояния на момент переключения
+    // пишется в фоне из неизменяемых версий хранилищ, не останавливая операции
+    private void startCompaction() {
+        int firstLiveSegment;
+        try {
+            firstLiveSegment = writeAheadLog.rotate();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
+        List<Collection<? extends Task>> state = List.of(
+                tasks.snapshot().values(),
+                epics.snapshot().values(),
+                subTasks.snapshot().values()
+        );
+        compaction = COMPACTOR.submit(() -> {
+            // Сегменты удаляются только после того, как снимок дошел до диска; если сбой случится
+            // между этими шагами, повтор уже учтенных записей поверх снимка даст то же состояние
+            writeSnapshot(state, true);
+            writeAheadLog.deleteSegmentsBefore(firstLiveSegment);
+            return null;
+        });
     }
 
-    @Override
-    public void removeSubTask(int subTaskId) {
-        super.removeSubTask(subTaskId);
-        save();
+    private void awaitCompaction() {
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException(e.getCause());
+        } finally {
+            compaction = null;
+        }
     }
 
-    private void save() {
-        List<String> strList = Stream.of(getTasks(), getEpics(), getSubTasks())
-                .flatMap(Collection::stream)
-                .map(TaskConverter::taskToDto)
-                .map(TaskConverter::dtoToString)
-                .toList();
-
-        try (Writer writer = new FileWriter(backedFile)) {
-            for (String str : strList) {
-                writer.append(str).append(System.lineSeparator());
-                writer.flush();
+    // Снимок пишется во временный файл и подменяет старый целиком. Перед удалением сегментов журнала
+    // снимок должен дойти до диска (force), иначе сбой может оставить пустой снимок без журнала
+    private void writeSnapshot(List<Collection<? extends Task>> state, boolean force) {
+        Path temp = sibling(backedFile, ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            format.writeSnapshot(out, state);
+            if (force) {
+                channel.force(false);
             }
         } catch (IOException e) {
             throw new ManagerSaveException(e);
         }
+        try {
+            Files.move(temp, backedFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
     }
 
+    // Снимок и журнал сворачиваются в итоговый набор задач по id, после чего менеджер строится один раз
     private static void loadFromFile(FileBackedTaskManager manager, File file) {
-        try (Stream<String> stream = Files.lines(file.toPath())) {
-            stream.map(TaskConverter::stringToDto)
-                    .forEach(dto -> {
-                        TaskType type = TaskConverter.stringToType(dto.type());
-                        switch (type) {
-                            case TASK -> {
-                                Task task = dtoToTask(dto);
-                                manager.tasks.put(task.getId(), task);
-                                manager.prioritizedTasks.add(task);
-                            }
-                            case EPIC -> {
-                                Epic epic = manager.calculateEpic(dtoToEpic(dto));
-                                manager.epics.put(dto.id(), epic);
-                            }
-                            case SUBTASK -> {
-                                SubTask subTask = dtoToSubTask(dto);
-                                manager.subTasks.put(subTask.getId(), subTask);
-                                manager.prioritizedTasks.add(subTask);
-                                Epic epic = manager.epics.get(subTask.getEpicId());
-                                epic.attachSubTask(subTask.getId());
-                                epic = manager.calculateEpic(epic);
-                                manager.epics.put(epic.getId(), epic);
-                            }
-                        }
-                    });
+        try {
+            IntObjectMap<Task> loaded = new IntObjectHashMap<>();
+            if (manager.pagedFile != null) {
+                manager.pagedFile.load(task -> loaded.put(task.getId(), task));
+            } else {
+                manager.format.readSnapshot(file.toPath(), task -> loaded.put(task.getId(), task));
+            }
+            if (manager.writeAheadLog != null) {
+                manager.writeAheadLog.replay(task -> loaded.put(task.getId(), task), loaded::remove);
+            }
+            manager.populate(loaded);
+            manager.historyLog.restore(manager::findTask);
         } catch (Exception e) {
             throw new ManagerLoadException(e);
         }
     }
+
+    private static Path sibling(File file, String suffix) {
+        return new File(file.getPath() + suffix).toPath();
+    }
 }
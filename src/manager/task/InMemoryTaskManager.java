@@ -1,74 +1,163 @@
 package manager.task;
 
+import collection.IntHashSet;
+import collection.IntObjectHashMap;
+import collection.IntObjectMap;
+import collection.PersistentIntMap;
+import collection.VersionedIntMap;
+import manager.event.ListenerErrorHandler;
+import manager.event.TaskEvent;
+import manager.event.TaskListener;
 import manager.history.HistoryManager;
+import manager.history.HotTaskCounter;
+import manager.schedule.ScheduleIndex;
+import manager.schedule.TreeScheduleIndex;
 import model.Epic;
 import model.SubTask;
 import model.Task;
 import model.TaskStatus;
+import model.TaskType;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class InMemoryTaskManager implements TaskManager {
 
     private final HistoryManager historyManager;
+    private final HotTaskCounter hotTasks = new HotTaskCounter();
 
-    protected final Set<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+    protected final ScheduleIndex prioritizedTasks;
 
-    protected final Map<Integer, Task> tasks = new HashMap<>(); // <taskId, Task>
-    protected final Map<Integer, Epic> epics = new HashMap<>(); // <epicId, Epic>
-    protected final Map<Integer, SubTask> subTasks = new HashMap<>(); // <subTaskId, SubTask>
+    // Хранилища публикуют неизменяемые версии, поэтому списки отдаются без копирования
+    protected final VersionedIntMap<Task> tasks = new VersionedIntMap<>(); // <taskId, Task>
+    protected final VersionedIntMap<Epic> epics = new VersionedIntMap<>(); // <epicId, Epic>
+    protected final VersionedIntMap<SubTask> subTasks = new VersionedIntMap<>(); // <subTaskId, SubTask>
+    protected final IntObjectMap<EpicRollup> epicRollups; // <epicId, EpicRollup>
 
-    private int index = 0;
+    private final AtomicInteger index = new AtomicInteger();
+    private volatile boolean deduplicateStrings;
+
+    private final List<TaskListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong listenerFailures = new AtomicLong();
+    private volatile ListenerErrorHandler listenerErrorHandler = ListenerErrorHandler.IGNORE;
 
     public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, new TreeScheduleIndex());
+    }
+
+    // Например, BitmapScheduleIndex для сценариев с частой записью
+    public InMemoryTaskManager(HistoryManager historyManager, ScheduleIndex prioritizedTasks) {
+        this(historyManager, new IntObjectHashMap<>(), prioritizedTasks);
+    }
+
+    // Позволяет наследникам подставить собственные реализации вспомогательных индексов
+    InMemoryTaskManager(
+            HistoryManager historyManager,
+            IntObjectMap<EpicRollup> epicRollups,
+            ScheduleIndex prioritizedTasks
+    ) {
         this.historyManager = historyManager;
+        this.epicRollups = epicRollups;
+        this.prioritizedTasks = prioritizedTasks;
+        // История хранит только id и берет актуальные версии задач из хранилищ менеджера, а список
+        // пересобирает только после изменений. Resolver замыкает сами хранилища, а не менеджер
+        VersionedIntMap<Task> taskStore = tasks;
+        VersionedIntMap<Epic> epicStore = epics;
+        VersionedIntMap<SubTask> subTaskStore = subTasks;
+        historyManager.setResolver(id -> findTask(taskStore, epicStore, subTaskStore, id), version::get);
+    }
+
+    // Одинаковые названия и описания сохраняемых задач будут храниться одним экземпляром строки
+    public void setDeduplicateStrings(boolean deduplicateStrings) {
+        this.deduplicateStrings = deduplicateStrings;
     }
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        return prioritizedTasks.getTasks();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return prioritizedTasks.getTasks(from, to);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        List<LocalDateTime> slots = findFreeSlots(duration, notBefore, notAfter, 1);
+        return slots.isEmpty() ? null : slots.get(0);
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(
+            Duration duration,
+            LocalDateTime notBefore,
+            LocalDateTime notAfter,
+            int count
+    ) {
+        return prioritizedTasks.findFreeSlots(duration, notBefore, notAfter, count);
     }
 
     public Collection<Task> getTasks() {
-        return List.copyOf(tasks.values());
+        return tasks.values();
     }
 
     @Override
     public Collection<Epic> getEpics() {
-        return List.copyOf(epics.values());
+        return epics.values();
     }
 
     @Override
     public Collection<SubTask> getSubTasks() {
-        return List.copyOf(subTasks.values());
+        return subTasks.values();
     }
 
     @Override
     public Collection<SubTask> getSubTasks(int epicId) {
         return epics.get(epicId).getSubTasks().stream()
                 .map(subTasks::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
+    @Override
+    public Page<Task> getTasks(Integer cursor, int limit) {
+        return page(tasks, cursor, limit);
+    }
+
+    @Override
+    public Page<Epic> getEpics(Integer cursor, int limit) {
+        return page(epics, cursor, limit);
+    }
+
+    @Override
+    public Page<SubTask> getSubTasks(Integer cursor, int limit) {
+        return page(subTasks, cursor, limit);
+    }
+
     @Override
     public Task getTask(int taskId) {
         Task task = tasks.get(taskId);
-        historyManager.add(task);
+        recordView(task);
         return task;
     }
 
     @Override
     public Epic getEpic(int epicId) {
         Epic epic = epics.get(epicId);
-        historyManager.add(epic);
+        recordView(epic);
         return epic;
     }
 
     @Override
     public SubTask getSubTask(int subTaskId) {
         SubTask subTask = subTasks.get(subTaskId);
-        historyManager.add(subTask);
+        recordView(subTask);
         return subTask;
     }
 
@@ -76,12 +165,14 @@ public class InMemoryTaskManager implements TaskManager {
     public Task upsertTask(Task task) {
         if (isIntersect(task)) return null;
         if (task.getId() == null) {
-            task.setId(index++);
+            task.setId(index.getAndIncrement());
         } else if (epics.containsKey(task.getId()) || subTasks.containsKey(task.getId())) {
             return null;
         }
-        tasks.put(task.getId(), task);
+        deduplicate(task);
+        Task oldTask = tasks.put(task.getId(), task);
         prioritizedTasks.add(task);
+        publishUpsert(oldTask, task);
         return task;
     }
 
@@ -89,13 +180,21 @@ public class InMemoryTaskManager implements TaskManager {
     public Epic upsertEpic(Epic epic) {
         if (epic.getId() == null) {
             // Присваиваем id если еще его нет
-            epic.setId(index++);
+            epic.setId(index.getAndIncrement());
         } else if (tasks.containsKey(epic.getId()) || subTasks.containsKey(epic.getId())) {
             // Возвращаем null если есть задание или подзадание с идентичным id
             return null;
         }
+        Epic oldEpic = epics.get(epic.getId());
+        if (oldEpic != null && oldEpic.getSubTasks() != epic.getSubTasks()) {
+            // Новая версия эпика сохраняет уже привязанные подзадачи, на которых построены агрегаты
+            epic.detachAllSubTasks();
+            oldEpic.getSubTasks().forEach(epic::attachSubTask);
+        }
+        deduplicate(epic);
         Epic result = calculateEpic(epic);
-        epics.put(epic.getId(), result);
+        epics.put(result.getId(), result);
+        publishUpsert(oldEpic, result);
         return result;
     }
 
@@ -107,58 +206,135 @@ public class InMemoryTaskManager implements TaskManager {
             return null;
         }
         if (subTask.getId() == null) {
-            subTask.setId(index++);
+            subTask.setId(index.getAndIncrement());
         } else if (epics.containsKey(subTask.getId()) || tasks.containsKey(subTask.getId())) {
             return null;
         }
-        subTasks.put(subTask.getId(), subTask);
+        deduplicate(subTask);
+        SubTask oldSubTask = subTasks.put(subTask.getId(), subTask);
         prioritizedTasks.add(subTask);
-        epic.attachSubTask(subTask.getId());
-        upsertEpic(epic);
+        publishUpsert(oldSubTask, subTask);
+        if (oldSubTask != null) {
+            detachSubTask(oldSubTask);
+        }
+        attachSubTask(subTask);
         return subTask;
     }
 
+    @Override
+    public List<Task> upsertAll(Collection<? extends Task> batch) {
+        if (!isValidBatch(batch)) {
+            return null;
+        }
+        List<Epic> newEpics = new ArrayList<>();
+        List<Task> newTasks = new ArrayList<>();
+        List<SubTask> newSubTasks = new ArrayList<>();
+        for (Task task : batch) {
+            if (task.getId() == null) {
+                task.setId(index.getAndIncrement());
+            }
+            deduplicate(task);
+            switch (task.getType()) {
+                case EPIC -> newEpics.add((Epic) task);
+                case SUBTASK -> newSubTasks.add((SubTask) task);
+                default -> newTasks.add(task);
+            }
+        }
+        // Эпики, затронутые пакетом, собираются в копиях и публикуются один раз, уже пересчитанными.
+        // Эпики пакета сохраняют уже привязанные подзадачи, а переданные экземпляры не меняются
+        IntObjectMap<Epic> touched = new IntObjectHashMap<>();
+        IntHashSet upsertedEpicIds = new IntHashSet();
+        for (Epic epic : newEpics) {
+            Epic oldEpic = epics.get(epic.getId());
+            Collection<Integer> subTaskIds = oldEpic == null ? epic.getSubTasks() : oldEpic.getSubTasks();
+            touched.put(epic.getId(), new Epic(epic, new IntHashSet(subTaskIds)));
+            upsertedEpicIds.add(epic.getId());
+        }
+        for (SubTask subTask : newSubTasks) {
+            SubTask oldSubTask = subTasks.get(subTask.getId());
+            if (oldSubTask != null) {
+                unlinkSubTask(touched, oldSubTask);
+            }
+            linkSubTask(touched, subTask);
+        }
+        // Эпики попадают в хранилище раньше своих подзадач
+        putEpics(touched, upsertedEpicIds);
+
+        PersistentIntMap<Task> oldTasks = tasks.update(map -> putAll(map, newTasks));
+        for (Task task : newTasks) {
+            prioritizedTasks.add(task);
+            publishUpsert(oldTasks.get(task.getId()), task);
+        }
+
+        PersistentIntMap<SubTask> oldSubTasks = subTasks.update(map -> putAll(map, newSubTasks));
+        for (SubTask subTask : newSubTasks) {
+            prioritizedTasks.add(subTask);
+            publishUpsert(oldSubTasks.get(subTask.getId()), subTask);
+        }
+
+        List<Task> result = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            result.add(task instanceof Epic ? epics.get(task.getId()) : task);
+        }
+        return result;
+    }
+
     @Override
     public void removeTasks() {
-        for (Task task : tasks.values()) {
-            historyManager.remove(task.getId());
-            prioritizedTasks.remove(task);
+        Collection<Task> removed = tasks.values();
+        for (Task task : removed) {
+            forget(task.getId());
+            prioritizedTasks.remove(task.getId());
         }
         tasks.clear();
+        removed.forEach(this::publishRemove);
     }
 
     @Override
     public void removeTask(int taskId) {
-        historyManager.remove(taskId);
+        forget(taskId);
         Task task = tasks.remove(taskId);
+        prioritizedTasks.remove(taskId);
         if (task != null) {
-            prioritizedTasks.remove(task);
+            publishRemove(task);
         }
     }
 
     @Override
     public void removeEpics() {
-        for (Epic epic : epics.values()) {
-            historyManager.remove(epic.getId());
+        Collection<Epic> removedEpics = epics.values();
+        Collection<SubTask> removedSubTasks = subTasks.values();
+        for (Epic epic : removedEpics) {
+            forget(epic.getId());
         }
-        for (SubTask subTask : subTasks.values()) {
-            historyManager.remove(subTask.getEpicId());
-            prioritizedTasks.remove(subTask);
+        for (SubTask subTask : removedSubTasks) {
+            forget(subTask.getId());
+            prioritizedTasks.remove(subTask.getId());
         }
         epics.clear();
         subTasks.clear();
+        epicRollups.clear();
+        removedEpics.forEach(this::publishRemove);
+        removedSubTasks.forEach(this::publishRemove);
     }
 
     @Override
     public void removeEpic(int epicId) {
-        historyManager.remove(epicId);
+        deleteEpic(epicId);
+    }
+
+    private void deleteEpic(int epicId) {
+        forget(epicId);
         Epic epic = epics.remove(epicId);
+        epicRollups.remove(epicId);
         if (epic != null) {
+            publishRemove(epic);
             for (int subTaskId : epic.getSubTasks()) {
-                historyManager.remove(subTaskId);
+                forget(subTaskId);
                 SubTask subTask = subTasks.remove(subTaskId);
+                prioritizedTasks.remove(subTaskId);
                 if (subTask != null) {
-                    prioritizedTasks.remove(subTask);
+                    publishRemove(subTask);
                 }
             }
         }
@@ -166,29 +342,62 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void removeSubTasks() {
-        for (Epic epic : epics.values()) {
-            epic.detachAllSubTasks();
-            upsertEpic(epic);
-        }
-        for (SubTask subTask : subTasks.values()) {
-            historyManager.remove(subTask.getId());
-            prioritizedTasks.remove(subTask);
+        Collection<SubTask> removed = subTasks.values();
+        for (SubTask subTask : removed) {
+            forget(subTask.getId());
+            prioritizedTasks.remove(subTask.getId());
         }
         subTasks.clear();
+        removed.forEach(this::publishRemove);
+        epicRollups.clear();
+        for (Epic epic : epics.values()) {
+            Epic result = editableEpic(epic);
+            result.detachAllSubTasks();
+            putEpic(result);
+        }
     }
 
     @Override
     public void removeSubTask(int subTaskId) {
-        historyManager.remove(subTaskId);
+        forget(subTaskId);
         SubTask subTask = subTasks.remove(subTaskId);
         if (subTask != null) {
-            prioritizedTasks.remove(subTask);
-            Epic epic = getEpic(subTask.getEpicId());
-            epic.detachSubTask(subTask.getId());
-            upsertEpic(epic);
+            prioritizedTasks.remove(subTaskId);
+            publishRemove(subTask);
+            detachSubTask(subTask);
         }
     }
 
+    @Override
+    public void removeAll(Collection<Integer> ids) {
+        IntHashSet removed = new IntHashSet(ids);
+        removed.forEachInt(id -> {
+            if (epics.containsKey(id)) {
+                deleteEpic(id);
+            }
+        });
+        IntObjectMap<Epic> touched = new IntObjectHashMap<>();
+        removed.forEachInt(id -> {
+            SubTask subTask = subTasks.get(id);
+            if (subTask != null) {
+                unlinkSubTask(touched, subTask);
+            }
+            if (subTask != null || tasks.containsKey(id)) {
+                forget(id);
+                prioritizedTasks.remove(id);
+            }
+        });
+        PersistentIntMap<Task> oldTasks = tasks.update(map -> removeAll(map, removed));
+        PersistentIntMap<SubTask> oldSubTasks = subTasks.update(map -> removeAll(map, removed));
+        removed.forEachInt(id -> {
+            Task task = oldTasks.containsKey(id) ? oldTasks.get(id) : oldSubTasks.get(id);
+            if (task != null) {
+                publishRemove(task);
+            }
+        });
+        putEpics(touched);
+    }
+
     protected Epic calculateEpic(Epic epic) {
         // Расчитываем статус и меняем его если он изменился
         Epic result = epic;
@@ -206,52 +415,327 @@ public class InMemoryTaskManager implements TaskManager {
         return result;
     }
 
-    private TaskStatus calculateStatus(Epic epic) {
-        int allCount = epic.getSubTasks().size();
-        if (allCount == 0) {
-            return TaskStatus.NEW;
-        }
-        int newCount = 0;
-        int doneCount = 0;
-        for (int subTaskId : epic.getSubTasks()) {
-            SubTask subTask = subTasks.get(subTaskId);
-            switch (subTask.getStatus()) {
-                case NEW -> newCount++;
-                case DONE -> doneCount++;
+    // Заполняет пустой менеджер загруженными задачами без проверок и событий изменений.
+    // Хранилища и расписание строятся разом, а агрегаты каждого эпика считаются один раз в конце,
+    // поэтому загрузка линейна по числу задач
+    protected void populate(IntObjectMap<Task> loaded) {
+        List<Task> newTasks = new ArrayList<>();
+        IntObjectMap<Epic> newEpics = new IntObjectHashMap<>();
+        List<SubTask> newSubTasks = new ArrayList<>();
+        loaded.forEachValue(task -> {
+            reserveId(task.getId());
+            switch (task.getType()) {
+                case TASK -> newTasks.add(task);
+                case EPIC -> newEpics.put(task.getId(), (Epic) task);
+                case SUBTASK -> newSubTasks.add((SubTask) task);
             }
+        });
+        // Загруженные эпики еще не опубликованы, поэтому подзадачи привязываются к ним без копирования
+        for (SubTask subTask : newSubTasks) {
+            Epic epic = newEpics.get(subTask.getEpicId());
+            if (epic == null) {
+                throw new IllegalStateException(
+                        "Epic " + subTask.getEpicId() + " of subtask " + subTask.getId() + " is missing."
+                );
+            }
+            epic.attachSubTask(subTask.getId());
+            epicRollups.computeIfAbsent(epic.getId(), id -> new EpicRollup()).add(subTask);
         }
-        if (newCount == allCount) {
-            return TaskStatus.NEW;
-        } else if (doneCount == allCount) {
-            return TaskStatus.DONE;
-        } else {
-            return TaskStatus.IN_PROGRESS;
+        List<Epic> calculated = new ArrayList<>(newEpics.size());
+        newEpics.forEachValue(epic -> calculated.add(calculateEpic(epic)));
+
+        PersistentIntMap<Task> builtTasks = PersistentIntMap.of(newTasks, Task::getId);
+        PersistentIntMap<Epic> builtEpics = PersistentIntMap.of(calculated, Epic::getId);
+        PersistentIntMap<SubTask> builtSubTasks = PersistentIntMap.of(newSubTasks, SubTask::getId);
+        tasks.update(map -> builtTasks);
+        epics.update(map -> builtEpics);
+        subTasks.update(map -> builtSubTasks);
+
+        List<Task> scheduled = new ArrayList<>(newTasks.size() + newSubTasks.size());
+        scheduled.addAll(newTasks);
+        scheduled.addAll(newSubTasks);
+        prioritizedTasks.addAll(scheduled);
+        version.incrementAndGet();
+    }
+
+    // Новые задачи получат id больше уже занятого, например после загрузки из файла
+    protected void reserveId(int id) {
+        index.accumulateAndGet(id + 1, Math::max);
+    }
+
+    // Опубликованный эпик уже отдан читателям и слушателям, поэтому изменения делаются в копии
+    private static Epic editableEpic(Epic epic) {
+        return new Epic(epic, new IntHashSet(epic.getSubTasks()));
+    }
+
+    protected Epic putEpic(Epic epic) {
+        Epic result = calculateEpic(epic);
+        Epic previous = epics.put(result.getId(), result);
+        publish(TaskEvent.Type.EPIC_RECALCULATED, previous, result);
+        return result;
+    }
+
+    protected void attachSubTask(SubTask subTask) {
+        Epic epic = editableEpic(epics.get(subTask.getEpicId()));
+        epic.attachSubTask(subTask.getId());
+        epicRollups.computeIfAbsent(epic.getId(), id -> new EpicRollup()).add(subTask);
+        putEpic(epic);
+    }
+
+    private void detachSubTask(SubTask subTask) {
+        Epic epic = epics.get(subTask.getEpicId());
+        if (epic == null) {
+            return;
+        }
+        epic = editableEpic(epic);
+        epic.detachSubTask(subTask.getId());
+        EpicRollup rollup = epicRollups.get(epic.getId());
+        if (rollup != null) {
+            rollup.remove(subTask);
         }
+        putEpic(epic);
+    }
+
+    // Пакет проверяется целиком до изменений: конфликты id, наличие эпиков и пересечения
+    // как с расписанием (без версий, которые пакет заменяет), так и внутри самого пакета
+    private boolean isValidBatch(Collection<? extends Task> batch) {
+        IntHashSet batchIds = new IntHashSet();
+        IntHashSet batchEpicIds = new IntHashSet();
+        for (Task task : batch) {
+            Integer id = task.getId();
+            if (id == null) {
+                continue;
+            }
+            if (!batchIds.add(id) || isTakenByOtherType(id, task.getType())) {
+                return false;
+            }
+            if (task.getType() == TaskType.EPIC) {
+                batchEpicIds.add(id);
+            }
+        }
+        List<Task> scheduled = new ArrayList<>();
+        for (Task task : batch) {
+            if (task instanceof SubTask subTask
+                    && !epics.containsKey(subTask.getEpicId())
+                    && !batchEpicIds.contains(subTask.getEpicId())) {
+                return false;
+            }
+            if (task.getType() != TaskType.EPIC && ScheduleIndex.isScheduled(task)) {
+                scheduled.add(task);
+            }
+        }
+        scheduled.sort(Comparator.comparing(Task::getStartTime));
+        LocalDateTime latestEnd = null;
+        for (Task task : scheduled) {
+            if (latestEnd != null && task.getStartTime().isBefore(latestEnd)) {
+                return false;
+            }
+            latestEnd = task.getEndTime();
+            if (prioritizedTasks.isIntersect(task.getStartTime(), task.getEndTime(), batchIds::contains)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void deduplicate(Task task) {
+        if (!deduplicateStrings) {
+            return;
+        }
+        if (task.getName() != null) {
+            task.setName(task.getName().intern());
+        }
+        if (task.getDescription() != null) {
+            task.setDescription(task.getDescription().intern());
+        }
+    }
+
+    private boolean isTakenByOtherType(int id, TaskType type) {
+        return (type != TaskType.TASK && tasks.containsKey(id))
+                || (type != TaskType.EPIC && epics.containsKey(id))
+                || (type != TaskType.SUBTASK && subTasks.containsKey(id));
+    }
+
+    private void linkSubTask(IntObjectMap<Epic> touched, SubTask subTask) {
+        Epic epic = touched.computeIfAbsent(subTask.getEpicId(), id -> editableEpic(epics.get(id)));
+        epic.attachSubTask(subTask.getId());
+        epicRollups.computeIfAbsent(epic.getId(), id -> new EpicRollup()).add(subTask);
+    }
+
+    private void unlinkSubTask(IntObjectMap<Epic> touched, SubTask subTask) {
+        Epic epic = touched.get(subTask.getEpicId());
+        if (epic == null) {
+            Epic stored = epics.get(subTask.getEpicId());
+            if (stored == null) {
+                return;
+            }
+            epic = editableEpic(stored);
+            touched.put(epic.getId(), epic);
+        }
+        epic.detachSubTask(subTask.getId());
+        EpicRollup rollup = epicRollups.get(epic.getId());
+        if (rollup != null) {
+            rollup.remove(subTask);
+        }
+    }
+
+    private void putEpics(IntObjectMap<Epic> touched) {
+        putEpics(touched, new IntHashSet());
+    }
+
+    // Эпики из upserted сохранены вызывающим и публикуются как созданные или измененные,
+    // остальные только пересчитаны после изменения подзадач
+    private void putEpics(IntObjectMap<Epic> touched, IntHashSet upserted) {
+        List<Epic> results = new ArrayList<>(touched.size());
+        touched.forEachValue(epic -> results.add(calculateEpic(epic)));
+        PersistentIntMap<Epic> previous = epics.update(map -> putAll(map, results));
+        for (Epic epic : results) {
+            Epic before = previous.get(epic.getId());
+            if (upserted.contains(epic.getId())) {
+                publishUpsert(before, epic);
+            } else {
+                publish(TaskEvent.Type.EPIC_RECALCULATED, before, epic);
+            }
+        }
+    }
+
+    // Страница читается из одного снимка, поэтому курсор стабилен при параллельных изменениях
+    private static <T extends Task> Page<T> page(VersionedIntMap<T> map, Integer cursor, int limit) {
+        Iterator<T> values = map.snapshot().tailValues(cursor == null ? 0 : cursor, true);
+        List<T> items = new ArrayList<>(limit);
+        while (items.size() < limit && values.hasNext()) {
+            items.add(values.next());
+        }
+        return new Page<>(items, values.hasNext() ? values.next().getId() : null);
+    }
+
+    private static <T extends Task> PersistentIntMap<T> putAll(PersistentIntMap<T> map, List<? extends T> values) {
+        for (T value : values) {
+            map = map.put(value.getId(), value);
+        }
+        return map;
+    }
+
+    private static <T> PersistentIntMap<T> removeAll(PersistentIntMap<T> map, IntHashSet keys) {
+        for (int key : keys) {
+            map = map.remove(key);
+        }
+        return map;
+    }
+
+    private TaskStatus calculateStatus(Epic epic) {
+        EpicRollup rollup = epicRollups.get(epic.getId());
+        return rollup == null ? TaskStatus.NEW : rollup.getStatus();
     }
 
     private Optional<LocalDateTime> calculateStartTime(Epic epic) {
-        return epic.getSubTasks().stream()
-                .map((id) -> subTasks.get(id).getStartTime())
-                .min(LocalDateTime::compareTo);
+        return Optional.ofNullable(epicRollups.get(epic.getId())).map(EpicRollup::getStartTime);
     }
 
     private Optional<LocalDateTime> calculateEndTime(Epic epic) {
-        return epic.getSubTasks().stream()
-                .map((id) -> subTasks.get(id).getEndTime())
-                .max(LocalDateTime::compareTo);
+        return Optional.ofNullable(epicRollups.get(epic.getId())).map(EpicRollup::getEndTime);
     }
 
-    private boolean isIntersect(Task t2) {
-        return prioritizedTasks.stream()
-                .filter(t1 -> !t1.getId().equals(t2.getId()))
-                .anyMatch(t1 ->
-                        t2.getStartTime().isBefore(t1.getEndTime()) &&
-                                t2.getEndTime().isAfter(t1.getStartTime())
-                );
+    private boolean isIntersect(Task task) {
+        return prioritizedTasks.isIntersect(task);
     }
 
     @Override
     public List<Task> getHistory() {
         return historyManager.getHistory();
     }
+
+    @Override
+    public List<Task> getHottest(int k) {
+        List<Task> result = new ArrayList<>();
+        // Удаленные задачи уходят из кандидатов вместе с удалением, но при конкурентном доступе
+        // задача может исчезнуть между выбором кандидатов и чтением
+        for (int id : hotTasks.top(k)) {
+            Task task = findTask(id);
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    // Удаленная задача больше не попадает ни в историю, ни в самые просматриваемые
+    private void forget(int id) {
+        historyManager.remove(id);
+        hotTasks.remove(id);
+    }
+
+    private void recordView(Task task) {
+        historyManager.add(task);
+        if (task != null) {
+            hotTasks.record(task.getId());
+        }
+    }
+
+    protected Task findTask(int id) {
+        return findTask(tasks, epics, subTasks, id);
+    }
+
+    private static Task findTask(
+            VersionedIntMap<Task> tasks,
+            VersionedIntMap<Epic> epics,
+            VersionedIntMap<SubTask> subTasks,
+            int id
+    ) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subTasks.get(id);
+        }
+        return task;
+    }
+
+    @Override
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Исключение слушателя не отменяет изменение и не мешает остальным слушателям
+    public void setListenerErrorHandler(ListenerErrorHandler listenerErrorHandler) {
+        this.listenerErrorHandler = listenerErrorHandler;
+    }
+
+    // Число исключений, брошенных слушателями
+    public long getListenerFailures() {
+        return listenerFailures.get();
+    }
+
+    // Доставка идет под общей блокировкой, чтобы каждый слушатель видел версии строго по возрастанию
+    protected void publish(TaskEvent.Type type, Task before, Task after) {
+        if (listeners.isEmpty()) {
+            version.incrementAndGet();
+            return;
+        }
+        synchronized (listeners) {
+            TaskEvent event = new TaskEvent(version.incrementAndGet(), type, before, after);
+            for (TaskListener listener : listeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (RuntimeException e) {
+                    listenerFailures.incrementAndGet();
+                    listenerErrorHandler.onError(event, e);
+                }
+            }
+        }
+    }
+
+    private void publishUpsert(Task before, Task after) {
+        publish(before == null ? TaskEvent.Type.CREATED : TaskEvent.Type.UPDATED, before, after);
+    }
+
+    private void publishRemove(Task task) {
+        publish(TaskEvent.Type.REMOVED, task, null);
+    }
 }
@@ -0,0 +1,103 @@
+package manager.task;
+
+import collection.IntObjectHashMap;
+import collection.IntObjectMap;
+import manager.Managers;
+import manager.event.TaskEvent;
+import manager.exception.ManagerLoadException;
+import manager.exception.ManagerSaveException;
+import manager.history.LoggedHistoryManager;
+import manager.task.storage.Durability;
+import manager.task.storage.MappedTaskStore;
+import model.Task;
+
+import java.io.File;
+import java.io.IOException;
+
+// Менеджер, у которого хранилищем служит отображенный в память файл: каждое изменение задачи
+// переписывает на месте ее запись, а не весь файл и не журнал. Загрузка читает записи
+// фиксированного размера без разбора текста
+public class MappedTaskManager extends PersistentTaskManager implements AutoCloseable {
+
+    private final MappedTaskStore store;
+    private final LoggedHistoryManager historyLog;
+    private final Durability durability;
+
+    private MappedTaskManager(LoggedHistoryManager historyManager, MappedTaskStore store, Durability durability) {
+        super(historyManager);
+        this.store = store;
+        this.historyLog = historyManager;
+        this.durability = durability;
+    }
+
+    public static MappedTaskManager open(File file) {
+        return open(file, Durability.SYNC);
+    }
+
+    // SYNC сбрасывает страницы на диск в конце каждой операции. В остальных режимах
+    // запись на диск остается страничному кэшу ОС и гарантирована только после close
+    public static MappedTaskManager open(File file, Durability durability) {
+        LoggedHistoryManager history = new LoggedHistoryManager(
+                Managers.getDefaultHistory(),
+                new File(file.getPath() + ".history").toPath()
+        );
+        MappedTaskStore store;
+        try {
+            store = MappedTaskStore.open(file.toPath());
+        } catch (IOException e) {
+            throw new ManagerLoadException(e);
+        }
+        MappedTaskManager manager = new MappedTaskManager(history, store, durability);
+        try {
+            IntObjectMap<Task> loaded = new IntObjectHashMap<>(store.size());
+            store.forEach(task -> loaded.put(task.getId(), task));
+            manager.populate(loaded);
+            history.restore(manager::findTask);
+        } catch (Exception e) {
+            try {
+                store.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new ManagerLoadException(e);
+        }
+        return manager;
+    }
+
+    // Дожидается записи истории и сбрасывает хранилище на диск
+    @Override
+    public void close() {
+        try {
+            try {
+                historyLog.close();
+            } finally {
+                store.close();
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
+    }
+
+    // Производные поля эпиков не записываются, потому что пересчитываются при загрузке
+    @Override
+    protected void publish(TaskEvent.Type type, Task before, Task after) {
+        super.publish(type, before, after);
+        try {
+            switch (type) {
+                case CREATED, UPDATED -> store.put(after);
+                case REMOVED -> store.remove(before.getId());
+                case EPIC_RECALCULATED -> {
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
+    }
+
+    @Override
+    protected void persist() {
+        if (durability == Durability.SYNC) {
+            store.force();
+        }
+    }
+}
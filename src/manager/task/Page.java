@@ -0,0 +1,7 @@
+package manager.task;
+
+import java.util.List;
+
+// Страница коллекции, упорядоченной по id; next — id первого элемента следующей страницы
+public record Page<T>(List<T> items, Integer next) {
+}
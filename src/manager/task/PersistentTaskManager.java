@@ -0,0 +1,91 @@
+package manager.task;
+
+import manager.history.HistoryManager;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+
+import java.util.Collection;
+import java.util.List;
+
+// Менеджер, который сохраняет изменения в конце каждой операции; как именно, решает наследник
+public abstract class PersistentTaskManager extends InMemoryTaskManager {
+
+    protected PersistentTaskManager(HistoryManager historyManager) {
+        super(historyManager);
+    }
+
+    @Override
+    public Task upsertTask(Task task) {
+        Task result = super.upsertTask(task);
+        persist();
+        return result;
+    }
+
+    @Override
+    public Epic upsertEpic(Epic epic) {
+        Epic result = super.upsertEpic(epic);
+        persist();
+        return result;
+    }
+
+    @Override
+    public SubTask upsertSubTask(SubTask subTask) {
+        SubTask result = super.upsertSubTask(subTask);
+        persist();
+        return result;
+    }
+
+    @Override
+    public List<Task> upsertAll(Collection<? extends Task> tasks) {
+        List<Task> result = super.upsertAll(tasks);
+        if (result != null) {
+            persist();
+        }
+        return result;
+    }
+
+    @Override
+    public void removeTasks() {
+        super.removeTasks();
+        persist();
+    }
+
+    @Override
+    public void removeTask(int taskId) {
+        super.removeTask(taskId);
+        persist();
+    }
+
+    @Override
+    public void removeEpics() {
+        super.removeEpics();
+        persist();
+    }
+
+    @Override
+    public void removeEpic(int epicId) {
+        super.removeEpic(epicId);
+        persist();
+    }
+
+    @Override
+    public void removeSubTasks() {
+        super.removeSubTasks();
+        persist();
+    }
+
+    @Override
+    public void removeSubTask(int subTaskId) {
+        super.removeSubTask(subTaskId);
+        persist();
+    }
+
+    @Override
+    public void removeAll(Collection<Integer> ids) {
+        super.removeAll(ids);
+        persist();
+    }
+
+    protected abstract void persist();
+}
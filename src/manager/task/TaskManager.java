@@ -1,16 +1,30 @@
 package manager.task;
 
+import manager.event.TaskListener;
+import manager.history.HotTaskCounter;
 import model.Epic;
 import model.SubTask;
 import model.Task;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
 public interface TaskManager {
 
+    // Сколько самых частых задач помнит счетчик просмотров: getHottest не вернет больше
+    int MAX_HOTTEST = HotTaskCounter.DEFAULT_CAPACITY;
+
     List<Task> getPrioritizedTasks();
 
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
+
+    // Самое раннее начало свободного интервала длины duration или null, если места нет
+    LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter);
+
+    List<LocalDateTime> findFreeSlots(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter, int count);
+
     Collection<Task> getTasks();
 
     Collection<Epic> getEpics();
@@ -19,6 +33,13 @@ public interface TaskManager {
 
     Collection<SubTask> getSubTasks(int epicId);
 
+    // Постраничное чтение по возрастанию id, начиная с cursor (null — с начала)
+    Page<Task> getTasks(Integer cursor, int limit);
+
+    Page<Epic> getEpics(Integer cursor, int limit);
+
+    Page<SubTask> getSubTasks(Integer cursor, int limit);
+
     Task getTask(int taskId);
 
     Epic getEpic(int epicId);
@@ -31,6 +52,9 @@ public interface TaskManager {
 
     SubTask upsertSubTask(SubTask subTask);
 
+    // Сохраняет все задачи разом; при любом конфликте не меняет ничего и возвращает null
+    List<Task> upsertAll(Collection<? extends Task> tasks);
+
     void removeTasks();
 
     void removeTask(int taskId);
@@ -43,5 +67,15 @@ public interface TaskManager {
 
     void removeSubTask(int subTaskId);
 
+    void removeAll(Collection<Integer> ids);
+
     List<Task> getHistory();
+
+    // До k самых часто просматриваемых задач по убыванию приблизительного числа просмотров,
+    // но не больше MAX_HOTTEST
+    List<Task> getHottest(int k);
+
+    void addListener(TaskListener listener);
+
+    void removeListener(TaskListener listener);
 }
@@ -0,0 +1,335 @@
+package manager.task.storage;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+// Двоичный формат: снимок начинается с MAGIC и VERSION, дальше идут записи, как в журнале.
+// Запись: вид (1 байт), длина тела (varint), тело, CRC32 вида и тела (4 байта).
+// Числа в теле — varint, со знаком — в zigzag; строка — varint (длина в байтах UTF-8 + 1), 0 означает null
+public class BinaryTaskFormat implements TaskFormat {
+
+    private static final byte[] MAGIC = {'K', 'B', 'A', 'N'};
+    private static final int VERSION = 1;
+
+    private static final int UPSERT = 1;
+    private static final int REMOVE = 2;
+
+    private static final int HAS_START_TIME = 1;
+    private static final int HAS_DURATION = 2;
+
+    private static final int CRC_SIZE = 4;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    @Override
+    public void writeSnapshot(OutputStream out, List<Collection<? extends Task>> state) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out);
+        buffered.write(MAGIC);
+        buffered.write(VERSION);
+        Buffer body = new Buffer();
+        for (Collection<? extends Task> collection : state) {
+            for (Task task : collection) {
+                body.clear();
+                writeTask(body, task);
+                writeRecord(buffered, UPSERT, body);
+            }
+        }
+        buffered.flush();
+    }
+
+    // Пустой файл — пустая доска, как и в CSV
+    @Override
+    public void readSnapshot(Path path, Consumer<Task> consumer) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length == 0) {
+            return;
+        }
+        int header = MAGIC.length + 1;
+        if (bytes.length < header || !Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IOException("Not a binary task snapshot: " + path + ".");
+        }
+        if (bytes[MAGIC.length] != VERSION) {
+            throw new IOException("Unsupported snapshot version " + bytes[MAGIC.length] + ".");
+        }
+        int end = readRecords(bytes, header, consumer, id -> {
+        });
+        if (end < bytes.length) {
+            throw new IOException("Snapshot " + path + " is truncated at offset " + end + ".");
+        }
+    }
+
+    @Override
+    public void writeUpsert(OutputStream out, Task task) throws IOException {
+        Buffer body = new Buffer();
+        writeTask(body, task);
+        writeRecord(out, UPSERT, body);
+    }
+
+    @Override
+    public void writeRemove(OutputStream out, int id) throws IOException {
+        Buffer body = new Buffer();
+        body.writeSignedVarLong(id);
+        writeRecord(out, REMOVE, body);
+    }
+
+    @Override
+    public int readRecords(byte[] bytes, Consumer<Task> upsert, IntConsumer remove) throws IOException {
+        return readRecords(bytes, 0, upsert, remove);
+    }
+
+    // Неполная или испорченная последняя запись — оборванный хвост; испорченная запись в середине — ошибка
+    private static int readRecords(byte[] bytes, int from, Consumer<Task> upsert, IntConsumer remove)
+            throws IOException {
+        Reader reader = new Reader(bytes, from, bytes.length);
+        while (reader.position < bytes.length) {
+            int start = reader.position;
+            int kind = reader.readByte();
+            long length;
+            try {
+                length = reader.readVarLong();
+            } catch (EOFException e) {
+                return start;
+            }
+            if (length < 0) {
+                throw new IOException("Malformed record length at offset " + start + ".");
+            }
+            if (length > bytes.length - reader.position - CRC_SIZE) {
+                return start;
+            }
+            int bodyStart = reader.position;
+            int bodyEnd = bodyStart + (int) length;
+            int end = bodyEnd + CRC_SIZE;
+            if (crc(bytes, start, bodyEnd) != readInt(bytes, bodyEnd)) {
+                if (end == bytes.length) {
+                    return start;
+                }
+                throw new IOException("Checksum mismatch at offset " + start + ".");
+            }
+            Reader body = new Reader(bytes, bodyStart, bodyEnd);
+            switch (kind) {
+                case UPSERT -> upsert.accept(readTask(body));
+                case REMOVE -> remove.accept((int) body.readSignedVarLong());
+                default -> throw new IOException("Unknown record kind " + kind + " at offset " + start + ".");
+            }
+            reader.position = end;
+        }
+        return reader.position;
+    }
+
+    private static void writeRecord(OutputStream out, int kind, Buffer body) throws IOException {
+        Buffer header = new Buffer();
+        header.writeByte(kind);
+        header.writeVarLong(body.size);
+        CRC32 crc = new CRC32();
+        crc.update(header.bytes, 0, header.size);
+        crc.update(body.bytes, 0, body.size);
+        int value = (int) crc.getValue();
+        out.write(header.bytes, 0, header.size);
+        out.write(body.bytes, 0, body.size);
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    // Время хранится секундами от эпохи и наносекундами: точность не теряется ни для какого LocalDateTime.
+    // Производные поля эпика не пишутся — они пересчитываются при загрузке
+    private static void writeTask(Buffer out, Task task) {
+        TaskType type = task.getType();
+        out.writeByte(type.ordinal());
+        out.writeSignedVarLong(task.getId());
+        out.writeByte(task.getStatus().ordinal());
+        out.writeString(task.getName());
+        out.writeString(task.getDescription());
+        if (type == TaskType.EPIC) {
+            out.writeByte(0);
+            return;
+        }
+        LocalDateTime startTime = task.getStartTime();
+        Duration duration = task.getDuration();
+        out.writeByte((startTime != null ? HAS_START_TIME : 0) | (duration != null ? HAS_DURATION : 0));
+        if (startTime != null) {
+            out.writeSignedVarLong(startTime.toEpochSecond(ZoneOffset.UTC));
+            out.writeVarLong(startTime.getNano());
+        }
+        if (duration != null) {
+            out.writeSignedVarLong(duration.getSeconds());
+            out.writeVarLong(duration.getNano());
+        }
+        if (type == TaskType.SUBTASK) {
+            out.writeSignedVarLong(((SubTask) task).getEpicId());
+        }
+    }
+
+    private static Task readTask(Reader in) throws IOException {
+        TaskType type = TYPES[in.readIndex(TYPES.length)];
+        int id = (int) in.readSignedVarLong();
+        TaskStatus status = STATUSES[in.readIndex(STATUSES.length)];
+        String name = in.readString();
+        String description = in.readString();
+        int flags = in.readByte();
+        if (type == TaskType.EPIC) {
+            Epic epic = new Epic(name, description);
+            epic.setId(id);
+            return epic;
+        }
+        LocalDateTime startTime = null;
+        if ((flags & HAS_START_TIME) != 0) {
+            long seconds = in.readSignedVarLong();
+            startTime = LocalDateTime.ofEpochSecond(seconds, (int) in.readVarLong(), ZoneOffset.UTC);
+        }
+        Duration duration = null;
+        if ((flags & HAS_DURATION) != 0) {
+            long seconds = in.readSignedVarLong();
+            duration = Duration.ofSeconds(seconds, in.readVarLong());
+        }
+        if (type == TaskType.SUBTASK) {
+            SubTask subTask = new SubTask(name, description, startTime, duration, (int) in.readSignedVarLong());
+            subTask.setId(id);
+            return new SubTask(subTask, status);
+        }
+        Task task = new Task(name, description, startTime, duration);
+        task.setId(id);
+        return new Task(task, status);
+    }
+
+    private static int crc(byte[] bytes, int from, int to) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, from, to - from);
+        return (int) crc.getValue();
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24
+                | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8
+                | bytes[offset + 3] & 0xFF;
+    }
+
+    private static final class Buffer {
+
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        private void clear() {
+            size = 0;
+        }
+
+        private void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeSignedVarLong(long value) {
+            writeVarLong(value << 1 ^ value >> 63);
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + extra));
+            }
+        }
+    }
+
+    // Чтение в пределах [position, limit)
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        private Reader(byte[] bytes, int position, int limit) {
+            this.bytes = bytes;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        private int readByte() throws EOFException {
+            if (position >= limit) {
+                throw new EOFException("Unexpected end of record at offset " + position + ".");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        private long readVarLong() throws IOException {
+            int start = position;
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint at offset " + start + ".");
+        }
+
+        private long readSignedVarLong() throws IOException {
+            long value = readVarLong();
+            return value >>> 1 ^ -(value & 1);
+        }
+
+        private int readIndex(int bound) throws IOException {
+            int value = readByte();
+            if (value >= bound) {
+                throw new IOException("Malformed record body at offset " + (position - 1) + ".");
+            }
+            return value;
+        }
+
+        private String readString() throws IOException {
+            int start = position;
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            if (length < 0 || length - 1 > limit - position) {
+                throw new IOException("Malformed string at offset " + start + ".");
+            }
+            String value = new String(bytes, position, (int) length - 1, StandardCharsets.UTF_8);
+            position += (int) length - 1;
+            return value;
+        }
+    }
+}
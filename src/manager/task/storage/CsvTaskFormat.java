@@ -0,0 +1,123 @@
+package manager.task.storage;
+
+import manager.task.converter.TaskConverter;
+import model.Task;
+import model.dto.TaskDto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import static manager.task.converter.TaskConverter.*;
+
+// Снимок — строки TaskConverter; в журнале "+<строка задачи>" сохраняет задачу, "-<id>" удаляет ее
+public class CsvTaskFormat implements TaskFormat {
+
+    private static final char UPSERT = '+';
+    private static final char REMOVE = '-';
+    private static final char END_OF_RECORD = '\n';
+
+    // Снимок меньше двух кусков разбирается в одном потоке
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    private static final int CHUNKS_PER_PROCESSOR = 4;
+
+    @Override
+    public void writeSnapshot(OutputStream out, List<Collection<? extends Task>> state) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        for (Collection<? extends Task> collection : state) {
+            for (Task task : collection) {
+                writer.append(dtoToString(taskToDto(task))).append(System.lineSeparator());
+            }
+        }
+        writer.flush();
+    }
+
+    // Файл делится по границам строк на куски, которые разбираются параллельно;
+    // consumer получает задачи в порядке файла в вызывающем потоке
+    @Override
+    public void readSnapshot(Path path, Consumer<Task> consumer) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        int chunks = Math.max(1, Math.min(
+                Runtime.getRuntime().availableProcessors() * CHUNKS_PER_PROCESSOR,
+                bytes.length / MIN_CHUNK_SIZE
+        ));
+        int[] bounds = new int[chunks + 1];
+        bounds[chunks] = bytes.length;
+        for (int i = 1; i < chunks; i++) {
+            int bound = Math.max(bounds[i - 1], (int) ((long) bytes.length * i / chunks));
+            while (bound < bytes.length && bytes[bound - 1] != END_OF_RECORD) {
+                bound++;
+            }
+            bounds[i] = bound;
+        }
+        List<List<Task>> parsed = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(i -> parseLines(bytes, bounds[i], bounds[i + 1]))
+                .toList();
+        parsed.forEach(chunk -> chunk.forEach(consumer));
+    }
+
+    @Override
+    public void writeUpsert(OutputStream out, Task task) throws IOException {
+        out.write((UPSERT + dtoToString(taskToDto(task)) + END_OF_RECORD).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeRemove(OutputStream out, int id) throws IOException {
+        out.write((REMOVE + Integer.toString(id) + END_OF_RECORD).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Строка без завершающего перевода строки считается оборванной
+    @Override
+    public int readRecords(byte[] bytes, Consumer<Task> upsert, IntConsumer remove) throws IOException {
+        int start = 0;
+        while (start < bytes.length) {
+            int end = indexOf(bytes, start);
+            if (end < 0) {
+                break;
+            }
+            String record = new String(bytes, start + 1, end - start - 1, StandardCharsets.UTF_8);
+            switch (bytes[start]) {
+                case UPSERT -> upsert.accept(dtoToAnyTask(TaskConverter.stringToDto(record)));
+                case REMOVE -> remove.accept(Integer.parseInt(record));
+                default -> throw new IOException("Unknown log record at offset " + start + ".");
+            }
+            start = end + 1;
+        }
+        return start;
+    }
+
+    private static List<Task> parseLines(byte[] bytes, int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8).lines()
+                .map(TaskConverter::stringToDto)
+                .map(CsvTaskFormat::dtoToAnyTask)
+                .toList();
+    }
+
+    private static Task dtoToAnyTask(TaskDto dto) {
+        return switch (stringToType(dto.type())) {
+            case TASK -> dtoToTask(dto);
+            case EPIC -> dtoToEpic(dto);
+            case SUBTASK -> dtoToSubTask(dto);
+        };
+    }
+
+    private static int indexOf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == END_OF_RECORD) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
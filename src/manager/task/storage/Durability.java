@@ -0,0 +1,13 @@
+package manager.task.storage;
+
+// Когда запись журнала считается сохраненной
+public enum Durability {
+    // Каждая операция ждет fsync своей записи
+    SYNC,
+    // Каждая операция ждет fsync своей записи, но операции, пришедшие во время чужого fsync,
+    // подтверждаются следующим одним общим fsync
+    GROUP,
+    // Операция не ждет диска; сброс идет в фоне, при сбое теряются записи последнего интервала
+    // или последней пачки операций
+    ASYNC
+}
@@ -0,0 +1,342 @@
+package manager.task.storage;
+
+import collection.IntIntHashMap;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Хранилище задач в отображенных в память файлах: сам файл и есть хранилище, а кэшированием
+// занимается страничный кэш ОС. Задача занимает запись фиксированного размера и меняется на месте,
+// строки дописываются в отдельную область <path>.strings. В куче лежит только индекс id -> запись.
+// Каждая область отображается целиком, поэтому ее размер ограничен 2 ГБ
+public class MappedTaskStore implements Closeable {
+
+    private static final int MAGIC = 0x4B4D4150; // "KMAP"
+    private static final int VERSION = 1;
+
+    // Заголовок: MAGIC, VERSION, число занятых когда-либо записей, конец строковой области
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOTS_OFFSET = 8;
+    private static final int STRINGS_END_OFFSET = 12;
+
+    // Запись: состояние, тип, статус, флаги, id, epicId, время начала, длительность, ссылки на строки
+    private static final int RECORD_SIZE = 64;
+    private static final int STATE = 0;
+    private static final int TYPE = 1;
+    private static final int STATUS = 2;
+    private static final int FLAGS = 3;
+    private static final int ID = 4;
+    private static final int EPIC_ID = 8;
+    private static final int START_NANOS = 12;
+    private static final int START_SECONDS = 16;
+    private static final int DURATION_SECONDS = 24;
+    private static final int DURATION_NANOS = 32;
+    private static final int NAME = 36; // смещение и длина
+    private static final int DESCRIPTION = 44; // смещение и длина
+
+    private static final byte FREE = 0;
+    private static final byte LIVE = 1;
+
+    private static final int HAS_START_TIME = 1;
+    private static final int HAS_DURATION = 2;
+
+    private static final int NULL_STRING = -1;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final int INITIAL_STRINGS = 64 * 1024;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final FileChannel recordsChannel;
+    private final FileChannel stringsChannel;
+    private MappedByteBuffer records;
+    private MappedByteBuffer strings;
+
+    private final IntIntHashMap index = new IntIntHashMap(); // <taskId, slot>
+    private int slots; // записи правее ни разу не использовались
+    private int stringsEnd;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private MappedTaskStore(FileChannel recordsChannel, FileChannel stringsChannel) {
+        this.recordsChannel = recordsChannel;
+        this.stringsChannel = stringsChannel;
+    }
+
+    // Открывает хранилище, создавая пустое, если файла нет. Индекс строится одним проходом
+    // по записям фиксированного размера без разбора строк
+    public static MappedTaskStore open(Path path) throws IOException {
+        FileChannel recordsChannel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        FileChannel stringsChannel;
+        try {
+            stringsChannel = FileChannel.open(
+                    path.resolveSibling(path.getFileName() + ".strings"),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE
+            );
+        } catch (IOException e) {
+            recordsChannel.close();
+            throw e;
+        }
+        MappedTaskStore store = new MappedTaskStore(recordsChannel, stringsChannel);
+        try {
+            store.init();
+        } catch (IOException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void init() throws IOException {
+        boolean created = recordsChannel.size() == 0;
+        records = recordsChannel.map(
+                FileChannel.MapMode.READ_WRITE,
+                0,
+                Math.max(recordsChannel.size(), HEADER_SIZE + (long) INITIAL_SLOTS * RECORD_SIZE)
+        );
+        strings = stringsChannel.map(
+                FileChannel.MapMode.READ_WRITE,
+                0,
+                Math.max(stringsChannel.size(), INITIAL_STRINGS)
+        );
+        if (created) {
+            records.putInt(0, MAGIC);
+            records.putInt(4, VERSION);
+            records.putInt(SLOTS_OFFSET, 0);
+            records.putInt(STRINGS_END_OFFSET, 0);
+            return;
+        }
+        if (records.getInt(0) != MAGIC) {
+            throw new IOException("Not a mapped task store.");
+        }
+        if (records.getInt(4) != VERSION) {
+            throw new IOException("Unsupported store version " + records.getInt(4) + ".");
+        }
+        slots = records.getInt(SLOTS_OFFSET);
+        stringsEnd = records.getInt(STRINGS_END_OFFSET);
+        if (slots > capacity() || stringsEnd > strings.capacity()) {
+            throw new IOException("Mapped task store is truncated.");
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            if (records.get(position(slot) + STATE) == LIVE) {
+                index.put(records.getInt(position(slot) + ID), slot);
+            } else {
+                pushFree(slot);
+            }
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public Task get(int id) {
+        int slot = index.get(id, -1);
+        return slot < 0 ? null : read(position(slot));
+    }
+
+    // Задачи в порядке записей в файле
+    public void forEach(Consumer<Task> consumer) {
+        for (int slot = 0; slot < slots; slot++) {
+            int position = position(slot);
+            if (records.get(position + STATE) == LIVE) {
+                consumer.accept(read(position));
+            }
+        }
+    }
+
+    // Существующая задача перезаписывается на месте; неизменившиеся строки не дописываются заново.
+    // Состояние LIVE ставится последним, чтобы недописанная новая запись не считалась занятой
+    public void put(Task task) throws IOException {
+        int id = task.getId();
+        int slot = index.get(id, -1);
+        boolean created = slot < 0;
+        if (created) {
+            slot = allocate();
+        }
+        int position = position(slot);
+        writeString(position + NAME, task.getName(), !created);
+        writeString(position + DESCRIPTION, task.getDescription(), !created);
+
+        TaskType type = task.getType();
+        records.put(position + TYPE, (byte) type.ordinal());
+        records.put(position + STATUS, (byte) task.getStatus().ordinal());
+        records.putInt(position + ID, id);
+        records.putInt(position + EPIC_ID, task instanceof SubTask subTask ? subTask.getEpicId() : 0);
+        // Время эпика производное и пересчитывается при загрузке
+        LocalDateTime startTime = type == TaskType.EPIC ? null : task.getStartTime();
+        Duration duration = type == TaskType.EPIC ? null : task.getDuration();
+        records.put(position + FLAGS, (byte) ((startTime != null ? HAS_START_TIME : 0) | (duration != null ? HAS_DURATION : 0)));
+        records.putLong(position + START_SECONDS, startTime == null ? 0 : startTime.toEpochSecond(ZoneOffset.UTC));
+        records.putInt(position + START_NANOS, startTime == null ? 0 : startTime.getNano());
+        records.putLong(position + DURATION_SECONDS, duration == null ? 0 : duration.getSeconds());
+        records.putInt(position + DURATION_NANOS, duration == null ? 0 : duration.getNano());
+        if (created) {
+            records.put(position + STATE, LIVE);
+            index.put(id, slot);
+        }
+    }
+
+    // Строки удаленной задачи остаются в строковой области до ее пересоздания
+    public void remove(int id) {
+        int slot = index.remove(id, -1);
+        if (slot < 0) {
+            return;
+        }
+        records.put(position(slot) + STATE, FREE);
+        pushFree(slot);
+    }
+
+    // Сбрасывает измененные страницы на диск
+    public void force() {
+        strings.force();
+        records.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (records != null) {
+                force();
+            }
+        } finally {
+            try {
+                recordsChannel.close();
+            } finally {
+                stringsChannel.close();
+            }
+        }
+    }
+
+    private Task read(int position) {
+        TaskType type = TYPES[records.get(position + TYPE)];
+        int id = records.getInt(position + ID);
+        String name = readString(position + NAME);
+        String description = readString(position + DESCRIPTION);
+        if (type == TaskType.EPIC) {
+            Epic epic = new Epic(name, description);
+            epic.setId(id);
+            return epic;
+        }
+        int flags = records.get(position + FLAGS);
+        LocalDateTime startTime = (flags & HAS_START_TIME) == 0 ? null : LocalDateTime.ofEpochSecond(
+                records.getLong(position + START_SECONDS),
+                records.getInt(position + START_NANOS),
+                ZoneOffset.UTC
+        );
+        Duration duration = (flags & HAS_DURATION) == 0 ? null : Duration.ofSeconds(
+                records.getLong(position + DURATION_SECONDS),
+                records.getInt(position + DURATION_NANOS)
+        );
+        TaskStatus status = STATUSES[records.get(position + STATUS)];
+        if (type == TaskType.SUBTASK) {
+            SubTask subTask = new SubTask(name, description, startTime, duration, records.getInt(position + EPIC_ID));
+            subTask.setId(id);
+            return new SubTask(subTask, status);
+        }
+        Task task = new Task(name, description, startTime, duration);
+        task.setId(id);
+        return new Task(task, status);
+    }
+
+    private String readString(int reference) {
+        int length = records.getInt(reference + 4);
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        strings.get(records.getInt(reference), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeString(int reference, String value, boolean reuse) throws IOException {
+        if (value == null) {
+            records.putInt(reference + 4, NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (reuse && sameString(reference, bytes)) {
+            return;
+        }
+        ensureStrings(bytes.length);
+        int offset = stringsEnd;
+        strings.put(offset, bytes);
+        stringsEnd += bytes.length;
+        records.putInt(STRINGS_END_OFFSET, stringsEnd);
+        records.putInt(reference, offset);
+        records.putInt(reference + 4, bytes.length);
+    }
+
+    private boolean sameString(int reference, byte[] bytes) {
+        if (records.getInt(reference + 4) != bytes.length) {
+            return false;
+        }
+        byte[] stored = new byte[bytes.length];
+        strings.get(records.getInt(reference), stored);
+        return Arrays.equals(stored, bytes);
+    }
+
+    private int allocate() throws IOException {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slots == capacity()) {
+            long size = HEADER_SIZE + (long) slots * 2 * RECORD_SIZE;
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Mapped task store is full.");
+            }
+            records = recordsChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        records.putInt(SLOTS_OFFSET, slots + 1);
+        return slots++;
+    }
+
+    private void ensureStrings(int extra) throws IOException {
+        long required = (long) stringsEnd + extra;
+        if (required <= strings.capacity()) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IOException("Mapped string area is full.");
+        }
+        long size = Math.min(Math.max(required, (long) strings.capacity() * 2), Integer.MAX_VALUE);
+        strings = stringsChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void pushFree(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int capacity() {
+        return (records.capacity() - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    private static int position(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,253 @@
+package manager.task.storage;
+
+import collection.IntObjectHashMap;
+import collection.IntObjectMap;
+import model.Task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Файл задач из страниц: страница хранит задачи с id из одного диапазона длины PAGE_SIZE в виде записей TaskFormat.
+// Изменение задачи перезаписывает только ее страницу, а не весь файл. Новая версия страницы пишется
+// в свободную ячейку, а не поверх прежней (теневая запись): при сбое остается прежняя версия,
+// а из нескольких целых версий при загрузке выбирается последняя
+public class PagedTaskFile implements Closeable {
+
+    // Задач с соседними id на страницу
+    public static final int PAGE_SIZE = 256;
+
+    private static final int MAGIC = 0x4B504746; // "KPGF"
+    private static final int SLOT_MAGIC = 0x4B504147; // "KPAG"
+    private static final int VERSION = 1;
+
+    // Ячейки выровнены по блоку, поэтому заголовок ячейки не пересекает границу сектора и пишется целиком
+    private static final int BLOCK_SIZE = 4096;
+    private static final int FILE_HEADER_SIZE = BLOCK_SIZE;
+
+    // Заголовок ячейки: SLOT_MAGIC, номер страницы, версия, вместимость, длина данных, CRC32
+    private static final int SLOT_HEADER_SIZE = 32;
+    // Сколько освобожденных ячеек может ждать сброса на диск, прежде чем commit без force сбросит их сам
+    private static final int MAX_RELEASED = 64;
+
+    private final Path path;
+    private final TaskFormat format;
+    private FileChannel channel;
+
+    private final IntObjectMap<Slot> pages = new IntObjectHashMap<>(); // <page, ячейка последней версии>
+    // Свободные ячейки по вместимости. Ячейки, освобожденные после последнего сброса на диск, ждут в released:
+    // пока новые версии не дошли до диска, после сбоя в них может оказаться единственная целая версия страницы
+    private final NavigableMap<Integer, ArrayDeque<Long>> free = new TreeMap<>();
+    private final List<Slot> released = new ArrayList<>();
+    private long end = FILE_HEADER_SIZE;
+    private long version;
+
+    private record Slot(long offset, int capacity) {
+    }
+
+    // Целая версия страницы, найденная при загрузке
+    private record Version(int page, Slot slot, long number, byte[] data) {
+    }
+
+    public PagedTaskFile(Path path, TaskFormat format) {
+        this.path = path;
+        this.format = format;
+    }
+
+    public static int pageOf(int id) {
+        return Math.floorDiv(id, PAGE_SIZE);
+    }
+
+    public static int firstId(int page) {
+        return page * PAGE_SIZE;
+    }
+
+    // Передает задачи последних целых версий всех страниц. Пустой файл — пустая доска
+    public void load(Consumer<Task> consumer) throws IOException {
+        FileChannel in = channel();
+        long size = in.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        readFully(in, header, 0);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a paged task file: " + path + ".");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported paged file version " + header.getInt(4) + ".");
+        }
+        IntObjectMap<Version> latest = new IntObjectHashMap<>();
+        List<Slot> slots = new ArrayList<>();
+        long offset = FILE_HEADER_SIZE;
+        ByteBuffer slotHeader = ByteBuffer.allocate(SLOT_HEADER_SIZE);
+        while (offset + SLOT_HEADER_SIZE <= size) {
+            slotHeader.clear();
+            readFully(in, slotHeader, offset);
+            int capacity = slotHeader.getInt(16);
+            // Дописанная последней ячейка могла не успеть попасть на диск: дальше ничего целого нет
+            if (slotHeader.getInt(0) != SLOT_MAGIC || capacity <= 0 || capacity % BLOCK_SIZE != 0) {
+                break;
+            }
+            Slot slot = new Slot(offset, capacity);
+            slots.add(slot);
+            offset += capacity;
+            int page = slotHeader.getInt(4);
+            long slotVersion = slotHeader.getLong(8);
+            int length = slotHeader.getInt(20);
+            version = Math.max(version, slotVersion);
+            Version current = latest.get(page);
+            if (current != null && current.number() > slotVersion
+                    || length < 0 || length > capacity - SLOT_HEADER_SIZE
+                    || slot.offset() + SLOT_HEADER_SIZE + length > size) {
+                continue;
+            }
+            ByteBuffer data = ByteBuffer.allocate(length);
+            readFully(in, data, slot.offset() + SLOT_HEADER_SIZE);
+            // Ячейка с несовпадающей суммой дописана не до конца и не считается версией страницы
+            if (crc(page, slotVersion, data.array()) == slotHeader.getInt(24)) {
+                latest.put(page, new Version(page, slot, slotVersion, data.array()));
+            }
+        }
+        end = offset;
+
+        List<Version> versions = new ArrayList<>(latest.size());
+        latest.forEachValue(versions::add);
+        Set<Slot> live = new HashSet<>();
+        for (Version latestVersion : versions) {
+            live.add(latestVersion.slot());
+            pages.put(latestVersion.page(), latestVersion.slot());
+            if (format.readRecords(latestVersion.data(), consumer, id -> {
+            }) != latestVersion.data().length) {
+                throw new IOException("Page in " + path + " is truncated.");
+            }
+        }
+        for (Slot slot : slots) {
+            if (!live.contains(slot)) {
+                addFree(slot);
+            }
+        }
+    }
+
+    // Пишет новую версию страницы; прежняя ячейка освободится после commit
+    public void writePage(int page, Iterable<? extends Task> tasks) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (Task task : tasks) {
+            format.writeUpsert(data, task);
+        }
+        byte[] bytes = data.toByteArray();
+        FileChannel out = channel();
+        if (out.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            writeFully(out, header, 0);
+        }
+        Slot slot = allocate(SLOT_HEADER_SIZE + bytes.length);
+        long slotVersion = ++version;
+        ByteBuffer buffer = ByteBuffer.allocate(SLOT_HEADER_SIZE + bytes.length);
+        buffer.putInt(SLOT_MAGIC)
+                .putInt(page)
+                .putLong(slotVersion)
+                .putInt(slot.capacity())
+                .putInt(bytes.length)
+                .putInt(crc(page, slotVersion, bytes))
+                .putInt(0)
+                .put(bytes)
+                .flip();
+        writeFully(out, buffer, slot.offset());
+        Slot previous = pages.put(page, slot);
+        if (previous != null) {
+            released.add(previous);
+        }
+    }
+
+    // Завершает операцию: с force дожидается диска. Только после сброса освобожденные ячейки
+    // можно занимать снова, иначе сбой мог бы стереть и новую, и прежнюю версию страницы.
+    // Без force ячейки копятся до MAX_RELEASED, после чего файл все же сбрасывается, чтобы не расти без предела
+    public void commit(boolean force) throws IOException {
+        if (!force && released.size() < MAX_RELEASED) {
+            return;
+        }
+        if (channel != null) {
+            channel.force(false);
+        }
+        released.forEach(this::addFree);
+        released.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private Slot allocate(int size) {
+        Map.Entry<Integer, ArrayDeque<Long>> fit = free.ceilingEntry(size);
+        if (fit != null) {
+            long offset = fit.getValue().poll();
+            if (fit.getValue().isEmpty()) {
+                free.remove(fit.getKey());
+            }
+            return new Slot(offset, fit.getKey());
+        }
+        // С запасом в половину, чтобы растущая страница не переезжала при каждой новой задаче
+        int capacity = roundUp(size + size / 2);
+        Slot slot = new Slot(end, capacity);
+        end += capacity;
+        return slot;
+    }
+
+    private void addFree(Slot slot) {
+        free.computeIfAbsent(slot.capacity(), capacity -> new ArrayDeque<>()).add(slot.offset());
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    private static int roundUp(int size) {
+        return Math.max(BLOCK_SIZE, (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE);
+    }
+
+    private static int crc(int page, long version, byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(12).putInt(page).putLong(version).array());
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of paged file.");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
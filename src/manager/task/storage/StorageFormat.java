@@ -0,0 +1,15 @@
+package manager.task.storage;
+
+public enum StorageFormat {
+    // Текстовые строки, совместимые с прежними файлами
+    CSV,
+    // Двоичные записи с контрольной суммой, см. BinaryTaskFormat
+    BINARY;
+
+    public TaskFormat create() {
+        return switch (this) {
+            case CSV -> new CsvTaskFormat();
+            case BINARY -> new BinaryTaskFormat();
+        };
+    }
+}
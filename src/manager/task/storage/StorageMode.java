@@ -0,0 +1,11 @@
+package manager.task.storage;
+
+public enum StorageMode {
+    // Каждое изменение перезаписывает файл целиком
+    SNAPSHOT,
+    // Изменения дописываются в журнал, а файл снимка обновляется при сжатии журнала
+    WRITE_AHEAD_LOG,
+    // Файл разбит на страницы по диапазонам id, см. PagedTaskFile: операция перезаписывает
+    // только страницы с измененными или удаленными задачами
+    PAGED
+}
@@ -0,0 +1,45 @@
+package manager.task.storage;
+
+import java.time.Duration;
+
+// Настройки хранения FileBackedTaskManager. format задает вид снимка, записей журнала и страниц.
+// durability действует в режиме журнала. Параметры сброса нужны только ASYNC: фоновый сброс
+// выполняется не реже flushInterval и сразу по набору flushBatchSize операций.
+// В режиме PAGED только SYNC дожидается диска в конце каждой операции
+public record StorageOptions(
+        StorageMode mode,
+        StorageFormat format,
+        Durability durability,
+        Duration flushInterval,
+        int flushBatchSize
+) {
+
+    public StorageOptions {
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Flush interval must be positive.");
+        }
+        if (flushBatchSize <= 0) {
+            throw new IllegalArgumentException("Flush batch size must be positive.");
+        }
+    }
+
+    public static StorageOptions defaults() {
+        return new StorageOptions(StorageMode.SNAPSHOT, StorageFormat.CSV, Durability.SYNC, Duration.ofMillis(10), 64);
+    }
+
+    public StorageOptions withMode(StorageMode mode) {
+        return new StorageOptions(mode, format, durability, flushInterval, flushBatchSize);
+    }
+
+    public StorageOptions withFormat(StorageFormat format) {
+        return new StorageOptions(mode, format, durability, flushInterval, flushBatchSize);
+    }
+
+    public StorageOptions withDurability(Durability durability) {
+        return new StorageOptions(mode, format, durability, flushInterval, flushBatchSize);
+    }
+
+    public StorageOptions withFlush(Duration flushInterval, int flushBatchSize) {
+        return new StorageOptions(mode, format, durability, flushInterval, flushBatchSize);
+    }
+}
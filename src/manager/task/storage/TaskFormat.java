@@ -0,0 +1,26 @@
+package manager.task.storage;
+
+import model.Task;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// Представление задач в файле снимка и в записях журнала
+public interface TaskFormat {
+
+    void writeSnapshot(OutputStream out, List<Collection<? extends Task>> state) throws IOException;
+
+    void readSnapshot(Path path, Consumer<Task> consumer) throws IOException;
+
+    void writeUpsert(OutputStream out, Task task) throws IOException;
+
+    void writeRemove(OutputStream out, int id) throws IOException;
+
+    // Разбирает записи журнала и возвращает длину целых записей: все, что дальше, оборвано при сбое
+    int readRecords(byte[] bytes, Consumer<Task> upsert, IntConsumer remove) throws IOException;
+}
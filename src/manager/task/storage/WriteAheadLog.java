@@ -0,0 +1,309 @@
+package manager.task.storage;
+
+import model.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+// Журнал изменений: каждая мутация дописывает запись вместо перезаписи всего файла.
+// Запись сохраняет или удаляет задачу; как она выглядит в файле, определяет TaskFormat.
+// Журнал разбит на сегменты <path>.1, <path>.2, ...: после снимка старые сегменты удаляются целиком
+public class WriteAheadLog implements Closeable {
+
+    // Один фоновый поток сбрасывает все журналы: ожидание fsync не занимает по потоку на журнал
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "wal-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TaskFormat format;
+    private final Path directory;
+    private final String prefix;
+    private final Durability durability;
+    private final long flushIntervalNanos;
+    private final int flushBatchSize;
+
+    // Состояние ниже меняется под монитором журнала
+    private int segment = 1; // номер сегмента, в который идут записи
+    private FileChannel channel;
+    private OutputStream out;
+    private int records; // записей, которые еще не вошли в снимок
+    private long appended; // номер последней добавленной записи
+    private long synced; // номер последней записи, сброшенной на диск
+    private boolean syncing; // fsync группы идет вне монитора
+    private long syncs; // выполненных fsync
+    private IOException syncFailure; // ошибка последнего fsync группы и номер последней записи, которую он покрывал
+    private long failedUpTo;
+    private int batchSize; // операций ASYNC, ждущих фонового сброса
+    private boolean flushScheduled;
+    private IOException flushFailure; // ошибка фонового сброса, о которой еще не сообщили
+
+    public WriteAheadLog(Path path) {
+        this(path, new CsvTaskFormat(), Durability.SYNC, Duration.ofMillis(10), 1);
+    }
+
+    public WriteAheadLog(
+            Path path,
+            TaskFormat format,
+            Durability durability,
+            Duration flushInterval,
+            int flushBatchSize
+    ) {
+        this.format = format;
+        Path absolute = path.toAbsolutePath();
+        this.directory = absolute.getParent();
+        this.prefix = absolute.getFileName() + ".";
+        this.durability = durability;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    // Применяет записи всех сегментов по порядку; дальнейшие записи продолжат последний сегмент
+    public synchronized void replay(Consumer<Task> upsert, IntConsumer remove) throws IOException {
+        List<Integer> segments = segments();
+        for (int number : segments) {
+            records += replaySegment(segmentPath(number), upsert, remove);
+        }
+        if (!segments.isEmpty()) {
+            segment = segments.get(segments.size() - 1);
+        }
+    }
+
+    // Оборванная при сбое запись не была подтверждена, поэтому отбрасывается и обрезается в файле
+    private int replaySegment(Path path, Consumer<Task> upsert, IntConsumer remove) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        int[] count = new int[1];
+        int valid = format.readRecords(
+                bytes,
+                task -> {
+                    count[0]++;
+                    upsert.accept(task);
+                },
+                id -> {
+                    count[0]++;
+                    remove.accept(id);
+                }
+        );
+        if (valid < bytes.length) {
+            try (FileChannel truncated = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                truncated.truncate(valid);
+            }
+        }
+        return count[0];
+    }
+
+    public synchronized void appendUpsert(Task task) throws IOException {
+        format.writeUpsert(out(), task);
+        records++;
+        appended++;
+    }
+
+    public synchronized void appendRemove(int id) throws IOException {
+        format.writeRemove(out(), id);
+        records++;
+        appended++;
+    }
+
+    // Подтверждает записи, добавленные до вызова; вызывается один раз в конце каждой операции менеджера.
+    // Сколько ждать диска, определяет durability
+    public void commit() throws IOException {
+        if (durability == Durability.GROUP) {
+            groupCommit();
+            return;
+        }
+        synchronized (this) {
+            if (flushFailure != null) {
+                IOException failure = flushFailure;
+                flushFailure = null;
+                throw failure;
+            }
+            // Записи этой операции уже сброшены вместе с другими или их не было
+            if (synced == appended) {
+                return;
+            }
+            if (durability == Durability.SYNC) {
+                sync();
+                return;
+            }
+            batchSize++;
+            if (batchSize >= flushBatchSize) {
+                FLUSHER.execute(this::flushBatch);
+                flushScheduled = true;
+            } else if (!flushScheduled) {
+                FLUSHER.schedule(this::flushBatch, flushIntervalNanos, TimeUnit.NANOSECONDS);
+                flushScheduled = true;
+            }
+        }
+    }
+
+    // Если fsync сейчас не идет, операция сразу сбрасывает журнал сама, поэтому одиночный писатель
+    // не ждет таймера. Операции, пришедшие во время fsync, ждут его окончания, и первая из них
+    // одним fsync подтверждает записи всех ожидающих
+    private void groupCommit() throws IOException {
+        FileChannel target;
+        long upTo;
+        synchronized (this) {
+            long own = appended;
+            while (true) {
+                if (synced >= own) {
+                    return;
+                }
+                if (syncFailure != null && failedUpTo >= own) {
+                    throw syncFailure;
+                }
+                if (!syncing) {
+                    break;
+                }
+                awaitSync();
+            }
+            upTo = appended;
+            out.flush();
+            target = channel;
+            syncing = true;
+        }
+        IOException failure = null;
+        try {
+            target.force(false);
+        } catch (IOException e) {
+            failure = e;
+        }
+        synchronized (this) {
+            syncs++;
+            syncing = false;
+            if (failure == null) {
+                synced = Math.max(synced, upTo);
+            } else {
+                syncFailure = failure;
+                failedUpTo = upTo;
+            }
+            notifyAll();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public synchronized int size() {
+        return records;
+    }
+
+    // Сколько раз журнал дожидался диска; в режиме GROUP показывает, сколько операций вошло в одну пачку
+    public synchronized long syncs() {
+        return syncs;
+    }
+
+    // Закрывает текущий сегмент и начинает следующий. Возвращает номер нового сегмента:
+    // все записи до него входят в снимок, снятый сразу после вызова
+    public synchronized int rotate() throws IOException {
+        close();
+        segment++;
+        records = 0;
+        return segment;
+    }
+
+    // Удаляет сегменты, записи которых уже вошли в снимок
+    public void deleteSegmentsBefore(int number) throws IOException {
+        for (int old : segments()) {
+            if (old < number) {
+                Files.deleteIfExists(segmentPath(old));
+            }
+        }
+    }
+
+    // Сбрасывает принятые записи на диск и закрывает файл; следующая запись откроет его снова
+    @Override
+    public synchronized void close() throws IOException {
+        // fsync группы еще держит канал, который закрывать нельзя
+        while (syncing) {
+            awaitSync();
+        }
+        try {
+            batchSize = 0;
+            sync();
+        } finally {
+            if (out != null) {
+                out.close();
+                channel = null;
+                out = null;
+            }
+        }
+    }
+
+    // Фоновый сброс ASYNC: ошибку получит следующая операция
+    private synchronized void flushBatch() {
+        flushScheduled = false;
+        batchSize = 0;
+        try {
+            sync();
+        } catch (IOException e) {
+            flushFailure = e;
+        }
+    }
+
+    private void sync() throws IOException {
+        if (channel != null) {
+            out.flush();
+            channel.force(false);
+            syncs++;
+        }
+        synced = appended;
+    }
+
+    private void awaitSync() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the log to reach the disk.");
+        }
+    }
+
+    private OutputStream out() throws IOException {
+        if (out == null) {
+            channel = FileChannel.open(
+                    segmentPath(segment),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND
+            );
+            out = new BufferedOutputStream(Channels.newOutputStream(channel));
+        }
+        return out;
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(prefix + number);
+    }
+
+    // Номера существующих сегментов по возрастанию
+    private List<Integer> segments() throws IOException {
+        List<Integer> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix))
+                    .map(name -> name.substring(prefix.length()))
+                    .filter(suffix -> !suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit))
+                    .forEach(suffix -> result.add(Integer.parseInt(suffix)));
+        }
+        result.sort(null);
+        return result;
+    }
+}
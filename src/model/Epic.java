@@ -1,18 +1,19 @@
 package model;
 
+import collection.IntHashSet;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collection;
-import java.util.HashSet;
 
 public class Epic extends Task {
 
-    private final Collection<Integer> subTaskIds;
+    private final IntHashSet subTaskIds;
     private LocalDateTime endTime;
 
     public Epic(String name, String description) {
         super(name, description, null, null);
-        this.subTaskIds = new HashSet<>();
+        this.subTaskIds = new IntHashSet();
     }
 
     public Epic(Epic epic, LocalDateTime startTime, LocalDateTime endTime) {
@@ -24,13 +25,19 @@ public class Epic extends Task {
                 startTime,
                 startTime == null || endTime == null ? null : Duration.between(startTime, endTime)
         );
-        this.subTaskIds = epic.getSubTasks();
+        this.subTaskIds = epic.subTaskIds;
         this.endTime = endTime;
     }
 
+    public Epic(Epic epic, IntHashSet subTaskIds) {
+        super(epic.getId(), epic.getName(), epic.getDescription(), epic.getStatus(), epic.getStartTime(), epic.getDuration());
+        this.subTaskIds = subTaskIds;
+        this.endTime = epic.getEndTime();
+    }
+
     public Epic(Epic epic, TaskStatus status) {
         super(epic.getId(), epic.getName(), epic.getDescription(), status, epic.getStartTime(), epic.getDuration());
-        this.subTaskIds = epic.getSubTasks();
+        this.subTaskIds = epic.subTaskIds;
     }
 
     public Collection<Integer> getSubTasks() {
@@ -12,6 +12,7 @@ public class Task {
     private final TaskStatus status;
     private final LocalDateTime startTime;
     private final Duration duration;
+    private transient LocalDateTime cachedEndTime; // время неизменяемо, поэтому конец считается один раз
 
     public Task(
             String name,
@@ -92,7 +93,10 @@ public class Task {
     }
 
     public LocalDateTime getEndTime() {
-        return startTime.plus(duration);
+        if (cachedEndTime == null) {
+            cachedEndTime = startTime.plus(duration);
+        }
+        return cachedEndTime;
     }
 
     @Override
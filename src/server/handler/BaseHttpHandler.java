@@ -3,17 +3,26 @@ package server.handler;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import manager.task.Page;
 import manager.task.TaskManager;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 abstract class BaseHttpHandler implements HttpHandler {
 
     protected static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
     protected static final String DEFAULT_CONTENT_TYPE = "application/json;charset=utf-8";
+    protected static final int MAX_PAGE_SIZE = 1000;
 
     protected final TaskManager taskManager;
     protected final Gson gson;
@@ -35,6 +44,69 @@ abstract class BaseHttpHandler implements HttpHandler {
 
     protected abstract void safetyHandle(HttpExchange exchange) throws IOException;
 
+    // Параметры строки запроса; при повторе параметра остается последнее значение
+    protected Map<String, String> getQueryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.put(URLDecoder.decode(name, DEFAULT_CHARSET), URLDecoder.decode(value, DEFAULT_CHARSET));
+        }
+        return params;
+    }
+
+    // С параметром limit отдает страницу {items, next}, иначе всю коллекцию массивом, как раньше
+    protected void sendCollection(
+            HttpExchange exchange,
+            Supplier<?> all,
+            BiFunction<Integer, Integer, Page<?>> page
+    ) throws IOException {
+        Map<String, String> params = getQueryParams(exchange);
+        if (!params.containsKey("limit")) {
+            sendResponse(exchange, gson.toJson(all.get()), 200);
+            return;
+        }
+        Integer cursor;
+        int limit;
+        try {
+            limit = Integer.parseInt(params.get("limit"));
+            cursor = params.containsKey("cursor") ? decodeCursor(params.get("cursor")) : null;
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400);
+            return;
+        }
+        if (limit <= 0) {
+            sendResponse(exchange, 400);
+            return;
+        }
+        Page<?> result = page.apply(cursor, Math.min(limit, MAX_PAGE_SIZE));
+        String next = result.next() == null ? null : encodeCursor(result.next());
+        sendResponse(exchange, gson.toJson(new PageResponse(result.items(), next)), 200);
+    }
+
+    private static String encodeCursor(int id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Integer.toString(id).getBytes(DEFAULT_CHARSET));
+    }
+
+    private static int decodeCursor(String cursor) {
+        return Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), DEFAULT_CHARSET));
+    }
+
+    private static class PageResponse {
+        private final List<?> items;
+        private final String next;
+
+        PageResponse(List<?> items, String next) {
+            this.items = items;
+            this.next = next;
+        }
+    }
+
     protected void sendResponse(HttpExchange exchange, String text, int code) throws IOException {
         byte[] resp = text.getBytes(DEFAULT_CHARSET);
         exchange.getResponseHeaders().add("Content-Type", DEFAULT_CONTENT_TYPE);
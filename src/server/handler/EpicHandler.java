@@ -40,7 +40,7 @@ public class EpicHandler extends BaseHttpHandler {
     }
 
     private void getEpics(HttpExchange exchange) throws IOException {
-        sendResponse(exchange, gson.toJson(taskManager.getEpics()), 200);
+        sendCollection(exchange, taskManager::getEpics, taskManager::getEpics);
     }
 
     private void getEpicById(HttpExchange exchange, String id) throws IOException {
@@ -5,9 +5,12 @@ import com.sun.net.httpserver.HttpExchange;
 import manager.task.TaskManager;
 
 import java.io.IOException;
+import java.util.Map;
 
 public class HistoryHandler extends BaseHttpHandler {
 
+    private static final int DEFAULT_TOP_SIZE = 10;
+
     public HistoryHandler(TaskManager taskManager, Gson gson) {
         super(taskManager, gson);
     }
@@ -19,6 +22,28 @@ public class HistoryHandler extends BaseHttpHandler {
         if (method.equals("GET") && path.equals("/history")) {
             String body = gson.toJson(taskManager.getHistory());
             sendResponse(exchange, body, 200);
+        } else if (method.equals("GET") && path.equals("/history/top")) {
+            getTop(exchange);
+        } else {
+            sendResponse(exchange, 404);
+        }
+    }
+
+    // k — сколько задач вернуть, по умолчанию 10 и не больше TaskManager.MAX_HOTTEST
+    private void getTop(HttpExchange exchange) throws IOException {
+        Map<String, String> params = getQueryParams(exchange);
+        int k;
+        try {
+            k = Integer.parseInt(params.getOrDefault("k", String.valueOf(DEFAULT_TOP_SIZE)));
+        } catch (NumberFormatException e) {
+            sendResponse(exchange, 400);
+            return;
+        }
+        if (k <= 0) {
+            sendResponse(exchange, 400);
+            return;
         }
+        String body = gson.toJson(taskManager.getHottest(Math.min(k, TaskManager.MAX_HOTTEST)));
+        sendResponse(exchange, body, 200);
     }
 }
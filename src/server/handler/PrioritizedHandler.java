@@ -3,8 +3,14 @@ package server.handler;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import manager.task.TaskManager;
+import model.Task;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler {
 
@@ -17,8 +23,65 @@ public class PrioritizedHandler extends BaseHttpHandler {
         String method = exchange.getRequestMethod();
         String path = exchange.getRequestURI().getPath();
         if (method.equals("GET") && path.equals("/prioritized")) {
-            String body = gson.toJson(taskManager.getPrioritizedTasks());
-            sendResponse(exchange, body, 200);
+            getPrioritized(exchange);
+        } else if (method.equals("GET") && path.equals("/prioritized/free")) {
+            getFreeSlots(exchange);
+        } else {
+            sendResponse(exchange, 404);
         }
     }
+
+    // Окно задается параметрами from и to в формате ISO-8601, например 2024-11-20T10:00
+    private void getPrioritized(HttpExchange exchange) throws IOException {
+        Map<String, String> params = getQueryParams(exchange);
+        List<Task> tasks;
+        if (!params.containsKey("from") && !params.containsKey("to")) {
+            tasks = taskManager.getPrioritizedTasks();
+        } else {
+            try {
+                LocalDateTime from = parseDateTime(params.get("from"));
+                LocalDateTime to = parseDateTime(params.get("to"));
+                if (from != null && to != null && from.isAfter(to)) {
+                    sendResponse(exchange, 400);
+                    return;
+                }
+                tasks = taskManager.getPrioritizedTasks(from, to);
+            } catch (DateTimeParseException e) {
+                sendResponse(exchange, 400);
+                return;
+            }
+        }
+        sendResponse(exchange, gson.toJson(tasks), 200);
+    }
+
+    // duration в формате ISO-8601 (PT30M) обязателен; from по умолчанию текущий момент, count — 1
+    private void getFreeSlots(HttpExchange exchange) throws IOException {
+        Map<String, String> params = getQueryParams(exchange);
+        Duration duration;
+        LocalDateTime from;
+        LocalDateTime to;
+        int count;
+        try {
+            duration = Duration.parse(params.getOrDefault("duration", ""));
+            from = parseDateTime(params.get("from"));
+            to = parseDateTime(params.get("to"));
+            count = Integer.parseInt(params.getOrDefault("count", "1"));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            sendResponse(exchange, 400);
+            return;
+        }
+        if (duration.isNegative() || duration.isZero() || count <= 0 || count > MAX_PAGE_SIZE) {
+            sendResponse(exchange, 400);
+            return;
+        }
+        if (from == null) {
+            from = LocalDateTime.now();
+        }
+        List<LocalDateTime> slots = taskManager.findFreeSlots(duration, from, to, count);
+        sendResponse(exchange, gson.toJson(slots), 200);
+    }
+
+    private LocalDateTime parseDateTime(String value) {
+        return value == null || value.isEmpty() ? null : LocalDateTime.parse(value);
+    }
 }
@@ -34,7 +34,7 @@ public class SubTaskHandler extends BaseHttpHandler {
     }
 
     private void getSubTasks(HttpExchange exchange) throws IOException {
-        sendResponse(exchange, gson.toJson(taskManager.getSubTasks()), 200);
+        sendCollection(exchange, taskManager::getSubTasks, taskManager::getSubTasks);
     }
 
     private void getSubTaskById(HttpExchange exchange, String id) throws IOException {
@@ -37,7 +37,7 @@ public class TaskHandler extends BaseHttpHandler {
     }
 
     private void getTasks(HttpExchange exchange) throws IOException {
-        sendResponse(exchange, gson.toJson(taskManager.getTasks()), 200);
+        sendCollection(exchange, taskManager::getTasks, taskManager::getTasks);
     }
 
     private void getTaskById(HttpExchange exchange, String id) throws IOException {
@@ -0,0 +1,42 @@
+package collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashSetTest {
+
+    @Test
+    void addContainsAndRemove() {
+        IntHashSet set = new IntHashSet();
+        assertTrue(set.add(7));
+        assertFalse(set.add(7));
+        set.add(0);
+        set.add(-3);
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(Integer.valueOf(-3)));
+        assertEquals(3, set.size());
+        assertTrue(set.remove(7));
+        assertFalse(set.remove(Integer.valueOf(7)));
+        assertEquals(Set.of(0, -3), set);
+    }
+
+    @Test
+    void smallIdsIterateInOrder() {
+        IntHashSet set = new IntHashSet(List.of(5, 3, 1, 4, 2));
+        assertIterableEquals(List.of(1, 2, 3, 4, 5), set);
+    }
+
+    @Test
+    void copyIsIndependent() {
+        IntHashSet set = new IntHashSet(List.of(1, 2));
+        IntHashSet copy = new IntHashSet(set);
+        copy.add(3);
+        set.clear();
+        assertEquals(0, set.size());
+        assertEquals(Set.of(1, 2, 3), copy);
+    }
+}
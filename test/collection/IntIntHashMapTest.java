@@ -0,0 +1,51 @@
+package collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntHashMapTest {
+
+    private final Random random = new Random();
+
+    @Test
+    void putGetAndRemove() {
+        IntIntHashMap map = new IntIntHashMap();
+        map.put(1, 0);
+        map.put(-5, -1);
+        assertEquals(0, map.get(1, 42));
+        assertEquals(-1, map.get(-5, 42));
+        assertEquals(42, map.get(2, 42));
+        assertEquals(2, map.size());
+        assertEquals(0, map.remove(1, 42));
+        assertEquals(42, map.remove(1, 42));
+        assertFalse(map.containsKey(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void behavesLikeHashMap() {
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(key, -1), map.remove(key, -1));
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -1_000; key < 1_000; key++) {
+            assertEquals(expected.getOrDefault(key, -1), map.get(key, -1));
+        }
+        map.clear();
+        assertEquals(0, map.size());
+    }
+}
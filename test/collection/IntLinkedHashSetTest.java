@@ -0,0 +1,55 @@
+package collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntLinkedHashSetTest {
+
+    private final Random random = new Random();
+
+    @Test
+    void addLastMovesExistingValueToEnd() {
+        IntLinkedHashSet set = new IntLinkedHashSet();
+        set.addLast(1);
+        set.addLast(-2);
+        set.addLast(3);
+        set.addLast(1);
+        assertEquals(List.of(-2, 3, 1), toList(set));
+        assertEquals(3, set.size());
+        assertTrue(set.remove(3));
+        assertFalse(set.remove(3));
+        assertFalse(set.contains(3));
+        assertEquals(List.of(-2, 1), toList(set));
+    }
+
+    @Test
+    void behavesLikeLinkedHashSet() {
+        IntLinkedHashSet set = new IntLinkedHashSet();
+        LinkedHashSet<Integer> expected = new LinkedHashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                expected.remove(value);
+                expected.add(value);
+                set.addLast(value);
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        assertEquals(new ArrayList<>(expected), toList(set));
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+    }
+
+    private static List<Integer> toList(IntLinkedHashSet set) {
+        List<Integer> result = new ArrayList<>();
+        set.forEachInt(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectHashMapTest {
+
+    private final Random random = new Random();
+
+    @Test
+    void putGetAndRemove() {
+        IntObjectMap<String> map = new IntObjectHashMap<>();
+        assertNull(map.put(1, "one"));
+        assertEquals("one", map.put(1, "uno"));
+        map.put(-5, "minus five");
+        assertEquals("uno", map.get(1));
+        assertEquals("minus five", map.get(-5));
+        assertEquals(2, map.size());
+        assertEquals("uno", map.remove(1));
+        assertNull(map.remove(1));
+        assertFalse(map.containsKey(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void removeKeepsCollidingKeysReachable() {
+        IntObjectMap<Integer> map = new IntObjectHashMap<>();
+        // Ключи с одинаковыми младшими битами образуют одну цепочку пробирования
+        for (int i = 0; i < 10; i++) {
+            map.put(i << 20, i);
+        }
+        map.remove(3 << 20);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i == 3 ? null : i, map.get(i << 20));
+        }
+    }
+
+    @Test
+    void behavesLikeHashMap() {
+        IntObjectMap<Integer> map = new IntObjectHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -1_000; key < 1_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(0));
+    }
+}
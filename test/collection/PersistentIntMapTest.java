@@ -0,0 +1,96 @@
+package collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentIntMapTest {
+
+    private final Random random = new Random();
+
+    @Test
+    void previousVersionIsNotChanged() {
+        PersistentIntMap<String> first = PersistentIntMap.<String>empty().put(1, "one");
+        PersistentIntMap<String> second = first.put(1, "uno").put(1_000_000, "million");
+        PersistentIntMap<String> third = second.remove(1);
+
+        assertIterableEquals(List.of("one"), first.values());
+        assertIterableEquals(List.of("uno", "million"), second.values());
+        assertIterableEquals(List.of("million"), third.values());
+        assertEquals(1, third.size());
+    }
+
+    @Test
+    void removeAbsentKeyReturnsSameVersion() {
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().put(1, "one");
+        assertSame(map, map.remove(2));
+        assertSame(map, map.remove(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void behavesLikeTreeMap() {
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextBoolean() ? random.nextInt(300) : random.nextInt(Integer.MAX_VALUE);
+            if (random.nextInt(4) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                map = map.put(key, key);
+                expected.put(key, key);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertIterableEquals(expected.values(), map.values());
+        for (Integer key : expected.keySet()) {
+            assertEquals(key, map.get(key));
+        }
+    }
+
+    @Test
+    void tailValuesStartAtKey() {
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 500; i++) {
+            int key = random.nextInt(5_000);
+            map = map.put(key, key);
+            expected.put(key, key);
+        }
+        for (int i = 0; i < 100; i++) {
+            int from = random.nextInt(6_000);
+            boolean inclusive = random.nextBoolean();
+            List<Integer> actual = new ArrayList<>();
+            map.tailValues(from, inclusive).forEachRemaining(actual::add);
+            assertIterableEquals(expected.tailMap(from, inclusive).values(), actual);
+        }
+    }
+
+    @Test
+    void builtMapMatchesSequentialPuts() {
+        TreeMap<Integer, Integer> expected = new TreeMap<>(Integer::compareUnsigned);
+        PersistentIntMap<Integer> sequential = PersistentIntMap.empty();
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextBoolean() ? random.nextInt(300) : random.nextInt();
+            expected.put(key, key);
+            sequential = sequential.put(key, key);
+        }
+        List<Integer> shuffled = new ArrayList<>(expected.values());
+        Collections.shuffle(shuffled, random);
+
+        PersistentIntMap<Integer> built = PersistentIntMap.of(shuffled, Integer::intValue);
+
+        assertEquals(expected.size(), built.size());
+        assertIterableEquals(sequential.values(), built.values());
+        for (Integer key : expected.keySet()) {
+            assertEquals(key, built.get(key));
+        }
+        // Построенная версия изменяется как обычная
+        int first = expected.firstKey();
+        assertNull(built.remove(first).get(first));
+        assertEquals(-1, built.put(-1, -1).get(-1));
+        assertThrows(IllegalArgumentException.class, () -> PersistentIntMap.of(List.of(1, 1), Integer::intValue));
+    }
+}
@@ -0,0 +1,114 @@
+package collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentTreeMapTest {
+
+    private final Random random = new Random();
+
+    @Test
+    void putAndGet() {
+        PersistentTreeMap<Integer, String> map = PersistentTreeMap.<Integer, String>empty()
+                .put(2, "two")
+                .put(1, "one")
+                .put(3, "three");
+        assertEquals(3, map.size());
+        assertEquals("one", map.get(1));
+        assertEquals("three", map.get(3));
+        assertNull(map.get(4));
+    }
+
+    @Test
+    void previousVersionIsNotChanged() {
+        PersistentTreeMap<Integer, String> first = PersistentTreeMap.<Integer, String>empty().put(1, "one");
+        PersistentTreeMap<Integer, String> second = first.put(1, "uno").put(2, "two");
+        PersistentTreeMap<Integer, String> third = second.remove(1);
+
+        assertIterableEquals(List.of("one"), first.values());
+        assertIterableEquals(List.of("uno", "two"), second.values());
+        assertIterableEquals(List.of("two"), third.values());
+    }
+
+    @Test
+    void removeAbsentKeyReturnsSameVersion() {
+        PersistentTreeMap<Integer, String> map = PersistentTreeMap.<Integer, String>empty().put(1, "one");
+        assertSame(map, map.remove(2));
+    }
+
+    @Test
+    void valuesAreOrderedAndIndexed() {
+        PersistentTreeMap<Integer, Integer> map = PersistentTreeMap.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 1000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(4) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                map = map.put(key, key);
+                expected.put(key, key);
+            }
+        }
+        List<Integer> values = map.values();
+        assertIterableEquals(expected.values(), values);
+        assertEquals(expected.size(), values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(new ArrayList<>(expected.values()).get(i), values.get(i));
+        }
+    }
+
+    @Test
+    void tailValues() {
+        PersistentTreeMap<Integer, Integer> map = PersistentTreeMap.empty();
+        for (int i = 0; i < 10; i += 2) {
+            map = map.put(i, i);
+        }
+        assertIterableEquals(List.of(4, 6, 8), toList(map.tailValues(4, true)));
+        assertIterableEquals(List.of(6, 8), toList(map.tailValues(4, false)));
+        assertIterableEquals(List.of(6, 8), toList(map.tailValues(5, true)));
+    }
+
+    @Test
+    void headEntriesDescending() {
+        PersistentTreeMap<Integer, Integer> map = PersistentTreeMap.empty();
+        for (int i = 0; i < 10; i += 2) {
+            map = map.put(i, i);
+        }
+        List<Integer> keys = new ArrayList<>();
+        map.headEntriesDescending(6).forEachRemaining(entry -> keys.add(entry.getKey()));
+        assertIterableEquals(List.of(4, 2, 0), keys);
+    }
+
+    private static <T> List<T> toList(Iterator<T> iterator) {
+        List<T> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+
+    @Test
+    void builtMapMatchesSequentialPuts() {
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(50_000);
+            expected.put(key, key * 2);
+        }
+        PersistentTreeMap<Integer, Integer> map = PersistentTreeMap.ofSorted(
+                new ArrayList<>(expected.keySet()),
+                new ArrayList<>(expected.values())
+        );
+
+        assertEquals(expected.size(), map.size());
+        assertIterableEquals(expected.values(), map.values());
+        for (Integer key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        PersistentTreeMap<Integer, Integer> changed = map.put(-1, -1).remove(expected.firstKey());
+        assertEquals(expected.size(), changed.size());
+        assertEquals(-1, changed.values().get(0));
+        assertThrows(IllegalArgumentException.class, () -> PersistentTreeMap.ofSorted(List.of(2, 1), List.of(2, 1)));
+    }
+}
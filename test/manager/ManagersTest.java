@@ -2,6 +2,8 @@ package manager;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 class ManagersTest {
@@ -11,8 +13,19 @@ class ManagersTest {
         assertNotNull(Managers.getDefault());
     }
 
+    @Test
+    void getConcurrent() {
+        assertNotNull(Managers.getConcurrent());
+    }
+
     @Test
     void getDefaultHistory() {
         assertNotNull(Managers.getDefaultHistory());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBoundedHistory() {
+        assertNotNull(Managers.getDefaultHistory(100));
+        assertNotNull(Managers.getDefaultHistory(100, Duration.ofHours(1)));
+    }
+}
@@ -0,0 +1,60 @@
+package manager.event;
+
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static util.TestTaskFabric.createTestTask;
+
+class AsyncTaskListenerTest {
+
+    @Test
+    void deliversAllEventsInOrderBeforeClose() {
+        List<Long> versions = new CopyOnWriteArrayList<>();
+        AsyncTaskListener listener = new AsyncTaskListener(event -> versions.add(event.version()), 2);
+        Task task = createTestTask(1);
+        for (long version = 1; version <= 100; version++) {
+            listener.onEvent(new TaskEvent(version, TaskEvent.Type.UPDATED, task, task));
+        }
+        listener.close();
+
+        assertEquals(100, versions.size());
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(i + 1L, versions.get(i));
+        }
+    }
+
+    @Test
+    void rejectsEventsAfterClose() {
+        AsyncTaskListener listener = new AsyncTaskListener(event -> {
+        }, 1);
+        listener.close();
+        assertThrows(
+                IllegalStateException.class,
+                () -> listener.onEvent(new TaskEvent(1, TaskEvent.Type.REMOVED, createTestTask(1), null))
+        );
+    }
+
+    @Test
+    void reportsDelegateFailuresAndKeepsDelivering() {
+        List<Long> failed = new CopyOnWriteArrayList<>();
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        AsyncTaskListener listener = new AsyncTaskListener(event -> {
+            if (event.version() == 1) {
+                throw new IllegalStateException("Listener failure.");
+            }
+            delivered.add(event.version());
+        }, 4, (event, error) -> failed.add(event.version()));
+        Task task = createTestTask(1);
+        listener.onEvent(new TaskEvent(1, TaskEvent.Type.UPDATED, task, task));
+        listener.onEvent(new TaskEvent(2, TaskEvent.Type.UPDATED, task, task));
+        listener.close();
+
+        assertEquals(1, listener.getFailures());
+        assertIterableEquals(List.of(1L), failed);
+        assertIterableEquals(List.of(2L), delivered);
+    }
+}
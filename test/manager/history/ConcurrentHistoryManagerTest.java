@@ -0,0 +1,73 @@
+package manager.history;
+
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static util.TestTaskFabric.*;
+
+class ConcurrentHistoryManagerTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 2000;
+
+    private final HistoryManager historyManager = new ConcurrentHistoryManager(new InMemoryHistoryManager());
+
+    @Test
+    void historyKeepsOrderOfViewsAndRemovals() {
+        Task first = createTestTask(1);
+        Task second = createTestTask(2);
+        Task third = createTestTask(3);
+        historyManager.add(first);
+        historyManager.add(second);
+        historyManager.add(third);
+        historyManager.add(first);
+        historyManager.remove(2);
+        historyManager.add(null);
+        assertIterableEquals(List.of(third, first), historyManager.getHistory());
+    }
+
+    @Test
+    void historyReflectsAllViewsFromConcurrentReaders() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            int offset = thread * ITERATIONS;
+            executor.submit(() -> {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    historyManager.add(createTestTask(offset + i));
+                    if (i % 100 == 0) {
+                        historyManager.getHistory();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(THREADS * ITERATIONS, history.size());
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : history) {
+            ids.add(task.getId());
+        }
+        assertEquals(THREADS * ITERATIONS, ids.size());
+        // Просмотры одного потока применяются в порядке их публикации
+        List<Integer> firstThread = new ArrayList<>();
+        for (Task task : history) {
+            if (task.getId() < ITERATIONS) {
+                firstThread.add(task.getId());
+            }
+        }
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(i, firstThread.get(i));
+        }
+    }
+}
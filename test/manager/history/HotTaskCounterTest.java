@@ -0,0 +1,92 @@
+package manager.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotTaskCounterTest {
+
+    private final Random random = new Random();
+
+    @Test
+    void estimateNeverUndercounts() {
+        HotTaskCounter counter = new HotTaskCounter(64, 4, 8);
+        int[] views = new int[1000];
+        for (int i = 0; i < 20000; i++) {
+            int id = random.nextInt(views.length);
+            views[id]++;
+            counter.record(id);
+        }
+        for (int id = 0; id < views.length; id++) {
+            assertTrue(counter.estimate(id) >= views[id]);
+        }
+    }
+
+    @Test
+    void topFindsHeavyHittersAmongNoise() {
+        HotTaskCounter counter = new HotTaskCounter();
+        for (int i = 0; i < 50000; i++) {
+            // Каждый десятый просмотр приходится на id 7, каждый двадцатый — на id 3, остальные размазаны
+            if (i % 10 == 0) {
+                counter.record(7);
+            } else if (i % 20 == 1) {
+                counter.record(3);
+            } else {
+                counter.record(1000 + random.nextInt(100000));
+            }
+        }
+        assertIterableEquals(List.of(7, 3), counter.top(2));
+    }
+
+    @Test
+    void topIsLimitedByK() {
+        HotTaskCounter counter = new HotTaskCounter();
+        for (int id = 0; id < 10; id++) {
+            counter.record(id);
+        }
+        assertEquals(3, counter.top(3).size());
+        assertTrue(counter.top(0).isEmpty());
+    }
+
+    @Test
+    void removedIdLeavesCandidatesAndFreesPlace() {
+        HotTaskCounter counter = new HotTaskCounter(1024, 4, 2);
+        for (int i = 0; i < 10; i++) {
+            counter.record(1);
+            counter.record(2);
+        }
+        counter.record(3);
+        assertIterableEquals(List.of(1, 2), counter.top(3));
+
+        counter.remove(1);
+        counter.record(3);
+        // Порог остается оценкой самого редкого кандидата, поэтому редкий id место не занимает
+        assertIterableEquals(List.of(2), counter.top(3));
+
+        for (int i = 0; i < 8; i++) {
+            counter.record(3);
+        }
+
+        assertIterableEquals(List.of(2, 3), counter.top(3));
+    }
+
+    @Test
+    void topIsLimitedByCapacity() {
+        HotTaskCounter counter = new HotTaskCounter(1024, 4, 2);
+        for (int id = 1; id <= 5; id++) {
+            for (int i = 0; i < id; i++) {
+                counter.record(id);
+            }
+        }
+
+        assertIterableEquals(List.of(5, 4), counter.top(10));
+    }
+
+    @Test
+    void widthMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new HotTaskCounter(100, 4, 8));
+    }
+}
@@ -1,13 +1,18 @@
 package manager.history;
 
 import model.Task;
+import model.TaskStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static util.TestTaskFabric.*;
@@ -152,6 +157,124 @@ class InMemoryHistoryManagerTest {
         assertIterableEquals(orderedList, historyManager.getHistory());
     }
 
+    @Test
+    void shouldReuseSnapshotWhileOrderIsUnchanged() {
+        Task first = createTestTask(1);
+        Task second = createTestTask(2);
+        historyManager.add(first);
+        historyManager.add(second);
+        List<Task> snapshot = historyManager.getHistory();
+
+        historyManager.add(second);
+        assertSame(snapshot, historyManager.getHistory());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(first));
+
+        historyManager.add(first);
+        assertIterableEquals(List.of(first, second), snapshot);
+        assertIterableEquals(List.of(second, first), historyManager.getHistory());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyViewedWhenFull() {
+        historyManager = new InMemoryHistoryManager(2, null);
+        Task first = createTestTask(1);
+        Task second = createTestTask(2);
+        Task third = createTestTask(3);
+        historyManager.add(first);
+        historyManager.add(second);
+        historyManager.add(first);
+        historyManager.add(third);
+
+        assertIterableEquals(List.of(first, third), historyManager.getHistory());
+    }
+
+    @Test
+    void shouldForgetExpiredViews() {
+        MutableClock clock = new MutableClock();
+        historyManager = new InMemoryHistoryManager(10, Duration.ofMinutes(5), clock);
+        Task first = createTestTask(1);
+        Task second = createTestTask(2);
+        historyManager.add(first);
+        clock.advance(Duration.ofMinutes(3));
+        historyManager.add(second);
+        clock.advance(Duration.ofMinutes(3));
+
+        assertIterableEquals(List.of(second), historyManager.getHistory());
+        clock.advance(Duration.ofMinutes(3));
+        assertTrue(historyManager.getHistory().isEmpty());
+    }
+
+    @Test
+    void shouldResolveIdsOnRead() {
+        Map<Integer, Task> store = new HashMap<>();
+        historyManager.setResolver(store::get);
+        Task first = createTestTask(1);
+        Task second = createTestTask(2);
+        store.put(1, first);
+        store.put(2, second);
+        historyManager.add(first);
+        historyManager.add(second);
+
+        Task updated = new Task(first, TaskStatus.DONE);
+        store.put(1, updated);
+        store.remove(2);
+        List<Task> history = historyManager.getHistory();
+        assertEquals(1, history.size());
+        assertSame(updated, history.get(0));
+    }
+
+    @Test
+    void shouldReuseResolvedHistoryUntilSourceOrOrderChanges() {
+        Map<Integer, Task> store = new HashMap<>();
+        AtomicLong version = new AtomicLong();
+        historyManager.setResolver(store::get, version::get);
+        Task first = createTestTask(1);
+        Task second = createTestTask(2);
+        store.put(1, first);
+        store.put(2, second);
+        historyManager.add(first);
+        historyManager.add(second);
+
+        List<Task> history = historyManager.getHistory();
+        assertSame(history, historyManager.getHistory());
+        historyManager.add(second);
+        assertSame(history, historyManager.getHistory());
+
+        historyManager.add(first);
+        List<Task> reordered = historyManager.getHistory();
+        assertIterableEquals(List.of(second, first), reordered);
+
+        Task updated = new Task(first, TaskStatus.DONE);
+        store.put(1, updated);
+        version.incrementAndGet();
+        assertIterableEquals(List.of(second, updated), historyManager.getHistory());
+        assertSame(updated, historyManager.getHistory().get(1));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.EPOCH;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
     private Task createRandomTask() {
         int taskType = random.nextInt(3);
         switch (taskType) {
@@ -0,0 +1,76 @@
+package manager.schedule;
+
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static util.TestTaskFabric.createTestTask;
+
+// Прогоняет общие сценарии TreeScheduleIndexTest и проверяет особенности поминутной разметки
+class BitmapScheduleIndexTest extends TreeScheduleIndexTest {
+
+    private final Random random = new Random();
+
+    @Override
+    protected ScheduleIndex createIndex() {
+        return new BitmapScheduleIndex();
+    }
+
+    @Test
+    void adjacentWithinMinuteIsNotIntersection() {
+        index.add(createTestTask(1, LocalDateTime.of(2024, 11, 20, 10, 0, 0), Duration.ofSeconds(30)));
+        index.add(createTestTask(2, LocalDateTime.of(2024, 11, 20, 10, 0, 50), Duration.ofSeconds(5)));
+
+        assertFalse(index.isIntersect(createTestTask(3, LocalDateTime.of(2024, 11, 20, 10, 0, 30), Duration.ofSeconds(20))));
+        assertTrue(index.isIntersect(createTestTask(3, LocalDateTime.of(2024, 11, 20, 10, 0, 40), Duration.ofSeconds(20))));
+    }
+
+    @Test
+    void sharedMinuteIsReleasedAfterRemove() {
+        index.add(createTestTask(1, LocalDateTime.of(2024, 11, 20, 10, 0, 0), Duration.ofSeconds(30)));
+        index.add(createTestTask(2, LocalDateTime.of(2024, 11, 20, 10, 0, 30), Duration.ofSeconds(30)));
+        index.remove(1);
+
+        assertFalse(index.isIntersect(createTestTask(3, LocalDateTime.of(2024, 11, 20, 10, 0, 0), Duration.ofSeconds(30))));
+        assertTrue(index.isIntersect(createTestTask(3, LocalDateTime.of(2024, 11, 20, 10, 0, 0), Duration.ofSeconds(31))));
+        index.remove(2);
+        assertFalse(index.isIntersect(createTestTask(3, LocalDateTime.of(2024, 11, 20, 10, 0, 0), Duration.ofMinutes(1))));
+    }
+
+    @Test
+    void longTaskIsCheckedWithoutPages() {
+        index.add(createTestTask(1, LocalDateTime.of(2024, 1, 1, 0, 0), Duration.ofDays(365)));
+
+        assertTrue(index.isIntersect(createTestTask(2, LocalDateTime.of(2024, 6, 1, 10, 0), Duration.ofMinutes(10))));
+        assertFalse(index.isIntersect(createTestTask(2, LocalDateTime.of(2025, 6, 1, 10, 0), Duration.ofMinutes(10))));
+    }
+
+    @Test
+    void agreesWithTreeIndex() {
+        ScheduleIndex tree = new TreeScheduleIndex();
+        LocalDateTime base = LocalDateTime.of(2024, 11, 20, 0, 0);
+        for (int i = 0; i < 3_000; i++) {
+            int id = random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                tree.remove(id);
+                continue;
+            }
+            Task task = createTestTask(
+                    id,
+                    base.plusSeconds(random.nextInt(3 * 24 * 3600)),
+                    Duration.ofSeconds(random.nextInt(4 * 3600))
+            );
+            assertEquals(tree.isIntersect(task), index.isIntersect(task));
+            if (!tree.isIntersect(task)) {
+                index.add(task);
+                tree.add(task);
+            }
+        }
+        assertIterableEquals(tree.getTasks(), index.getTasks());
+    }
+}
@@ -0,0 +1,143 @@
+package manager.schedule;
+
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static util.TestTaskFabric.createTestTask;
+
+class TreeScheduleIndexTest {
+
+    protected ScheduleIndex index;
+
+    protected ScheduleIndex createIndex() {
+        return new TreeScheduleIndex();
+    }
+
+    @BeforeEach
+    public void beforeEach() {
+        index = createIndex();
+    }
+
+    @Test
+    void shouldReturnTasksOrderedByStartTime() {
+        Task late = createTestTask(1, LocalDateTime.of(2024, 11, 20, 12, 0), Duration.ofMinutes(10));
+        Task early = createTestTask(2, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10));
+        index.add(late);
+        index.add(early);
+        assertIterableEquals(List.of(early, late), index.getTasks());
+    }
+
+    @Test
+    void addAllBuildsOrderedIndex() {
+        Task late = createTestTask(1, LocalDateTime.of(2024, 11, 20, 12, 0), Duration.ofMinutes(10));
+        Task early = createTestTask(2, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10));
+        Task unscheduled = createTestTask(3, null, null);
+        index.addAll(List.of(late, unscheduled, early));
+
+        assertIterableEquals(List.of(early, late), index.getTasks());
+        assertTrue(index.isIntersect(createTestTask(4, LocalDateTime.of(2024, 11, 20, 12, 5), Duration.ofMinutes(1))));
+        index.remove(early.getId());
+        assertIterableEquals(List.of(late), index.getTasks());
+    }
+
+    @Test
+    void shouldFindIntersectionWithPreviousTask() {
+        index.add(createTestTask(1, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(70)));
+        index.add(createTestTask(2, LocalDateTime.of(2024, 11, 20, 12, 0), Duration.ofMinutes(10)));
+        Task task = createTestTask(3, LocalDateTime.of(2024, 11, 20, 11, 0), Duration.ofMinutes(1));
+        assertTrue(index.isIntersect(task));
+    }
+
+    @Test
+    void shouldFindIntersectionWithNextTask() {
+        index.add(createTestTask(1, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10)));
+        Task task = createTestTask(2, LocalDateTime.of(2024, 11, 20, 9, 55), Duration.ofMinutes(10));
+        assertTrue(index.isIntersect(task));
+    }
+
+    @Test
+    void adjacentTasksDoNotIntersect() {
+        index.add(createTestTask(1, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10)));
+        index.add(createTestTask(2, LocalDateTime.of(2024, 11, 20, 10, 20), Duration.ofMinutes(10)));
+        Task task = createTestTask(3, LocalDateTime.of(2024, 11, 20, 10, 10), Duration.ofMinutes(10));
+        assertFalse(index.isIntersect(task));
+    }
+
+    @Test
+    void taskDoesNotIntersectWithItself() {
+        Task task = createTestTask(1, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10));
+        index.add(task);
+        Task moved = createTestTask(1, LocalDateTime.of(2024, 11, 20, 10, 5), Duration.ofMinutes(10));
+        assertFalse(index.isIntersect(moved));
+    }
+
+    @Test
+    void addReplacesPreviousVersionOfTask() {
+        index.add(createTestTask(1, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10)));
+        Task moved = createTestTask(1, LocalDateTime.of(2024, 11, 20, 12, 0), Duration.ofMinutes(10));
+        index.add(moved);
+        assertIterableEquals(List.of(moved), index.getTasks());
+        Task task = createTestTask(2, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10));
+        assertFalse(index.isIntersect(task));
+    }
+
+    @Test
+    void removeFreesInterval() {
+        index.add(createTestTask(1, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10)));
+        index.remove(1);
+        Task task = createTestTask(2, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10));
+        assertFalse(index.isIntersect(task));
+        assertTrue(index.getTasks().isEmpty());
+    }
+
+    @Test
+    void shouldReturnTasksInsideWindow() {
+        Task overlapsStart = createTestTask(1, LocalDateTime.of(2024, 11, 20, 9, 50), Duration.ofMinutes(20));
+        Task inside = createTestTask(2, LocalDateTime.of(2024, 11, 20, 10, 30), Duration.ofMinutes(10));
+        Task endsBefore = createTestTask(3, LocalDateTime.of(2024, 11, 20, 9, 0), Duration.ofMinutes(10));
+        Task startsAtEnd = createTestTask(4, LocalDateTime.of(2024, 11, 20, 11, 0), Duration.ofMinutes(10));
+        index.add(overlapsStart);
+        index.add(inside);
+        index.add(endsBefore);
+        index.add(startsAtEnd);
+
+        LocalDateTime from = LocalDateTime.of(2024, 11, 20, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 11, 20, 11, 0);
+        assertIterableEquals(List.of(overlapsStart, inside), index.getTasks(from, to));
+        assertIterableEquals(List.of(overlapsStart, inside, startsAtEnd), index.getTasks(from, null));
+        assertIterableEquals(List.of(endsBefore, overlapsStart, inside), index.getTasks(null, to));
+        assertTrue(index.getTasks(to.plusDays(1), null).isEmpty());
+    }
+
+    @Test
+    void shouldFindFreeSlotsBetweenTasks() {
+        index.add(createTestTask(1, LocalDateTime.of(2024, 11, 20, 9, 30), Duration.ofMinutes(40)));
+        index.add(createTestTask(2, LocalDateTime.of(2024, 11, 20, 10, 30), Duration.ofMinutes(30)));
+        index.add(createTestTask(3, LocalDateTime.of(2024, 11, 20, 11, 20), Duration.ofMinutes(30)));
+
+        LocalDateTime from = LocalDateTime.of(2024, 11, 20, 10, 0);
+        assertIterableEquals(
+                List.of(
+                        LocalDateTime.of(2024, 11, 20, 10, 10),
+                        LocalDateTime.of(2024, 11, 20, 11, 0),
+                        LocalDateTime.of(2024, 11, 20, 11, 50)
+                ),
+                index.findFreeSlots(Duration.ofMinutes(20), from, null, 5)
+        );
+        assertIterableEquals(
+                List.of(LocalDateTime.of(2024, 11, 20, 11, 50)),
+                index.findFreeSlots(Duration.ofMinutes(25), from, null, 5)
+        );
+        assertIterableEquals(
+                List.of(LocalDateTime.of(2024, 11, 20, 10, 10)),
+                index.findFreeSlots(Duration.ofMinutes(20), from, LocalDateTime.of(2024, 11, 20, 12, 0), 1)
+        );
+        assertTrue(index.findFreeSlots(Duration.ofMinutes(30), from, LocalDateTime.of(2024, 11, 20, 12, 0), 5).isEmpty());
+    }
+}
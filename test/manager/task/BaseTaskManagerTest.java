@@ -1,5 +1,7 @@
 package manager.task;
 
+import manager.event.TaskEvent;
+import manager.event.TaskListener;
 import model.Epic;
 import model.SubTask;
 import model.Task;
@@ -10,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Random;
 
@@ -96,6 +99,97 @@ abstract class BaseTaskManagerTest<T extends TaskManager> {
         assertIterableEquals(subTasks, taskManager.getSubTasks()); // проверка на порядок
     }
 
+    @Test
+    void tasksSnapshotIsNotChangedByLaterUpdates() {
+        Task task = taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(1)
+                )
+        );
+        Collection<Task> snapshot = taskManager.getTasks();
+        taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 11, 0),
+                        Duration.ofMinutes(1)
+                )
+        );
+        taskManager.removeTask(task.getId());
+
+        assertIterableEquals(List.of(task), snapshot);
+        assertEquals(1, taskManager.getTasks().size());
+    }
+
+    @Test
+    void epicsSnapshotIsNotChangedByLaterSubTaskUpdates() {
+        int epicId = taskManager.upsertEpic(createTestEpic()).getId();
+        SubTask first = taskManager.upsertSubTask(
+                createTestSubTask(
+                        TaskStatus.DONE,
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(10),
+                        epicId
+                )
+        );
+        Collection<Epic> snapshot = taskManager.getEpics();
+        Epic viewed = taskManager.getEpic(epicId);
+        taskManager.upsertSubTask(
+                createTestSubTask(
+                        LocalDateTime.of(2024, 11, 20, 11, 0),
+                        Duration.ofMinutes(10),
+                        epicId
+                )
+        );
+        taskManager.removeSubTask(first.getId());
+
+        Epic snapshotEpic = snapshot.iterator().next();
+        assertIterableEquals(List.of(first.getId()), snapshotEpic.getSubTasks());
+        assertEquals(TaskStatus.DONE, snapshotEpic.getStatus());
+        assertIterableEquals(List.of(first.getId()), viewed.getSubTasks());
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(epicId).getStatus());
+        assertFalse(taskManager.getEpic(epicId).getSubTasks().contains(first.getId()));
+    }
+
+    @Test
+    void epicsSnapshotIsNotChangedByLaterBatchUpdates() {
+        int epicId = taskManager.upsertEpic(createTestEpic()).getId();
+        SubTask first = taskManager.upsertSubTask(
+                createTestSubTask(
+                        TaskStatus.DONE,
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(10),
+                        epicId
+                )
+        );
+        Collection<Epic> snapshot = taskManager.getEpics();
+        List<TaskEvent> events = new ArrayList<>();
+        taskManager.addListener(events::add);
+        Epic updatedEpic = createTestEpic(epicId);
+        SubTask second = createTestSubTask(
+                LocalDateTime.of(2024, 11, 20, 11, 0),
+                Duration.ofMinutes(10),
+                epicId
+        );
+
+        assertNotNull(taskManager.upsertAll(List.of(updatedEpic, second)));
+        List<TaskEvent> epicEvents = events.stream()
+                .filter(event -> event.after() instanceof Epic)
+                .toList();
+        assertEquals(1, epicEvents.size());
+        assertEquals(TaskEvent.Type.UPDATED, epicEvents.get(0).type());
+        Epic published = (Epic) epicEvents.get(0).after();
+        assertEquals(2, published.getSubTasks().size());
+
+        taskManager.removeSubTask(first.getId());
+        taskManager.removeSubTask(second.getId());
+
+        assertIterableEquals(List.of(first.getId()), snapshot.iterator().next().getSubTasks());
+        assertEquals(2, published.getSubTasks().size());
+        assertEquals(TaskStatus.IN_PROGRESS, published.getStatus());
+        assertTrue(updatedEpic.getSubTasks().isEmpty());
+        assertTrue(taskManager.getEpic(epicId).getSubTasks().isEmpty());
+    }
+
     @Test
     void shouldReturnTaskAfterAddingItem() {
         Task task = taskManager.upsertTask(createTestTask());
@@ -499,6 +593,76 @@ abstract class BaseTaskManagerTest<T extends TaskManager> {
         assertNull(epic.getEndTime());
     }
 
+    @Test
+    void epicRecalculatedAfterSubTaskUpdate() {
+        int epicId = taskManager.upsertEpic(createTestEpic()).getId();
+        SubTask subTask = taskManager.upsertSubTask(
+                createTestSubTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(10),
+                        epicId
+                )
+        );
+        SubTask newSubTask = createTestSubTask(
+                TaskStatus.DONE,
+                LocalDateTime.of(2024, 11, 20, 12, 0),
+                Duration.ofMinutes(20),
+                epicId
+        );
+        newSubTask.setId(subTask.getId());
+        taskManager.upsertSubTask(newSubTask);
+
+        Epic epic = taskManager.getEpic(epicId);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(newSubTask.getStartTime(), epic.getStartTime());
+        assertEquals(newSubTask.getEndTime(), epic.getEndTime());
+        assertEquals(1, epic.getSubTasks().size());
+    }
+
+    @Test
+    void subTaskMovedToOtherEpic() {
+        int firstEpicId = taskManager.upsertEpic(createTestEpic()).getId();
+        int secondEpicId = taskManager.upsertEpic(createTestEpic()).getId();
+        SubTask subTask = taskManager.upsertSubTask(
+                createTestSubTask(
+                        TaskStatus.DONE,
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(10),
+                        firstEpicId
+                )
+        );
+        SubTask movedSubTask = createTestSubTask(
+                TaskStatus.DONE,
+                LocalDateTime.of(2024, 11, 20, 10, 0),
+                Duration.ofMinutes(10),
+                secondEpicId
+        );
+        movedSubTask.setId(subTask.getId());
+        taskManager.upsertSubTask(movedSubTask);
+
+        Epic firstEpic = taskManager.getEpic(firstEpicId);
+        assertEquals(TaskStatus.NEW, firstEpic.getStatus());
+        assertTrue(firstEpic.getSubTasks().isEmpty());
+        assertNull(firstEpic.getStartTime());
+
+        Epic secondEpic = taskManager.getEpic(secondEpicId);
+        assertEquals(TaskStatus.DONE, secondEpic.getStatus());
+        assertIterableEquals(List.of(movedSubTask), taskManager.getSubTasks(secondEpicId));
+    }
+
+    @Test
+    void updateEpicKeepsSubTasks() {
+        int epicId = taskManager.upsertEpic(createTestEpic()).getId();
+        SubTask subTask = taskManager.upsertSubTask(createTestSubTask(TaskStatus.DONE, epicId));
+        Epic newEpic = createTestEpic();
+        newEpic.setId(epicId);
+        taskManager.upsertEpic(newEpic);
+
+        Epic epic = taskManager.getEpic(epicId);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertIterableEquals(List.of(subTask), taskManager.getSubTasks(epicId));
+    }
+
     @Test
     void getHistory() {
         Epic epic = taskManager.upsertEpic(createTestEpic());
@@ -508,6 +672,62 @@ abstract class BaseTaskManagerTest<T extends TaskManager> {
         assertEquals(1, taskManager.getHistory().size());
     }
 
+    @Test
+    void historyReturnsCurrentVersions() {
+        Task task = taskManager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(1)));
+        Epic epic = taskManager.upsertEpic(createTestEpic());
+        taskManager.getTask(task.getId());
+        taskManager.getEpic(epic.getId());
+        taskManager.upsertTask(new Task(task, TaskStatus.DONE));
+        taskManager.upsertSubTask(
+                createTestSubTask(TaskStatus.DONE, LocalDateTime.of(2024, 11, 20, 11, 0), Duration.ofMinutes(1), epic.getId())
+        );
+
+        List<Task> history = taskManager.getHistory();
+        assertEquals(TaskStatus.DONE, history.get(0).getStatus());
+        assertEquals(TaskStatus.DONE, history.get(1).getStatus());
+        assertSame(taskManager.getEpics().iterator().next(), history.get(1));
+    }
+
+    @Test
+    void getHottestOrdersByViews() {
+        Task task = taskManager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(1)));
+        Epic epic = taskManager.upsertEpic(createTestEpic());
+        Task removed = taskManager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 11, 0), Duration.ofMinutes(1)));
+        for (int i = 0; i < 3; i++) {
+            taskManager.getEpic(epic.getId());
+        }
+        taskManager.getTask(task.getId());
+        for (int i = 0; i < 5; i++) {
+            taskManager.getTask(removed.getId());
+        }
+        taskManager.removeTask(removed.getId());
+        assertIterableEquals(List.of(epic, task), taskManager.getHottest(10));
+        assertIterableEquals(List.of(epic), taskManager.getHottest(1));
+    }
+
+    @Test
+    void getHottestForgetsRemovedTasks() {
+        List<Integer> removed = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Task task = taskManager.upsertTask(
+                    createTestTask(
+                            LocalDateTime.of(2024, 11, 20, 10, 0).plusMinutes(i),
+                            Duration.ofMinutes(1)
+                    )
+            );
+            for (int view = 0; view < 5; view++) {
+                taskManager.getTask(task.getId());
+            }
+            removed.add(task.getId());
+        }
+        taskManager.removeAll(removed);
+        Epic epic = taskManager.upsertEpic(createTestEpic());
+        taskManager.getEpic(epic.getId());
+
+        assertIterableEquals(List.of(epic), taskManager.getHottest(10));
+    }
+
     @Test
     void removeAllTasksHistory() {
         for (int i = 0; i < 5; i++) {
@@ -615,4 +835,267 @@ abstract class BaseTaskManagerTest<T extends TaskManager> {
 
         assertIterableEquals(List.of(subTask1, task1), taskManager.getPrioritizedTasks());
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateTaskMovesItInPrioritizedTasks() {
+        Task task = taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(10)
+                )
+        );
+        Task movedTask = createTestTask(
+                LocalDateTime.of(2024, 11, 20, 12, 0),
+                Duration.ofMinutes(10)
+        );
+        movedTask.setId(task.getId());
+        taskManager.upsertTask(movedTask);
+
+        Task newTask = taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(10)
+                )
+        );
+
+        assertNotNull(newTask);
+        assertIterableEquals(List.of(newTask, movedTask), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void upsertAllAddsTasksAndRecalculatesEpic() {
+        Epic epic = createTestEpic();
+        epic.setId(100);
+        SubTask subTask = createTestSubTask(
+                TaskStatus.DONE,
+                LocalDateTime.of(2024, 11, 20, 10, 0),
+                Duration.ofMinutes(10),
+                100
+        );
+        Task task = createTestTask(
+                LocalDateTime.of(2024, 11, 20, 10, 10),
+                Duration.ofMinutes(10)
+        );
+
+        List<Task> result = taskManager.upsertAll(List.of(epic, subTask, task));
+
+        assertNotNull(result);
+        assertEquals(3, result.size());
+        assertNotNull(subTask.getId());
+        assertNotNull(task.getId());
+        Epic savedEpic = taskManager.getEpic(100);
+        assertEquals(savedEpic, result.get(0));
+        assertEquals(TaskStatus.DONE, savedEpic.getStatus());
+        assertEquals(subTask.getStartTime(), savedEpic.getStartTime());
+        assertIterableEquals(List.of(subTask, task), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void upsertAllRejectsIntersectionInsideBatch() {
+        Task first = createTestTask(
+                LocalDateTime.of(2024, 11, 20, 10, 0),
+                Duration.ofMinutes(10)
+        );
+        Task second = createTestTask(
+                LocalDateTime.of(2024, 11, 20, 10, 5),
+                Duration.ofMinutes(10)
+        );
+
+        assertNull(taskManager.upsertAll(List.of(first, second)));
+        assertNull(first.getId());
+        assertTrue(taskManager.getTasks().isEmpty());
+    }
+
+    @Test
+    void upsertAllRejectsBatchWithUnknownEpic() {
+        Task task = createTestTask(
+                LocalDateTime.of(2024, 11, 20, 10, 0),
+                Duration.ofMinutes(10)
+        );
+        SubTask subTask = createTestSubTask(
+                LocalDateTime.of(2024, 11, 20, 11, 0),
+                Duration.ofMinutes(10),
+                42
+        );
+
+        assertNull(taskManager.upsertAll(List.of(task, subTask)));
+        assertTrue(taskManager.getTasks().isEmpty());
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+    }
+
+    @Test
+    void upsertAllCanSwapScheduledIntervals() {
+        Task first = taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(10)
+                )
+        );
+        Task second = taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 11, 0),
+                        Duration.ofMinutes(10)
+                )
+        );
+        // По отдельности каждое обновление пересекается со старой версией другой задачи
+        Task movedFirst = createTestTask(first.getId(), second.getStartTime(), Duration.ofMinutes(10));
+        Task movedSecond = createTestTask(second.getId(), first.getStartTime(), Duration.ofMinutes(10));
+
+        assertNotNull(taskManager.upsertAll(List.of(movedFirst, movedSecond)));
+        assertIterableEquals(List.of(movedSecond, movedFirst), taskManager.getPrioritizedTasks());
+        assertEquals(second.getStartTime(), taskManager.getTask(first.getId()).getStartTime());
+    }
+
+    @Test
+    void removeAllRemovesEveryKind() {
+        Task task = taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(10)
+                )
+        );
+        int firstEpicId = taskManager.upsertEpic(createTestEpic()).getId();
+        int secondEpicId = taskManager.upsertEpic(createTestEpic()).getId();
+        SubTask removedSubTask = taskManager.upsertSubTask(
+                createTestSubTask(
+                        LocalDateTime.of(2024, 11, 20, 11, 0),
+                        Duration.ofMinutes(10),
+                        secondEpicId
+                )
+        );
+        SubTask keptSubTask = taskManager.upsertSubTask(
+                createTestSubTask(
+                        TaskStatus.DONE,
+                        LocalDateTime.of(2024, 11, 20, 12, 0),
+                        Duration.ofMinutes(10),
+                        secondEpicId
+                )
+        );
+        taskManager.upsertSubTask(
+                createTestSubTask(
+                        LocalDateTime.of(2024, 11, 20, 13, 0),
+                        Duration.ofMinutes(10),
+                        firstEpicId
+                )
+        );
+        taskManager.getTask(task.getId());
+
+        taskManager.removeAll(List.of(task.getId(), firstEpicId, removedSubTask.getId()));
+
+        assertTrue(taskManager.getTasks().isEmpty());
+        assertIterableEquals(List.of(keptSubTask), taskManager.getSubTasks());
+        assertEquals(1, taskManager.getEpics().size());
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(secondEpicId).getStatus());
+        assertIterableEquals(List.of(taskManager.getEpic(secondEpicId)), taskManager.getHistory());
+    }
+
+    @Test
+    void tasksArePagedById() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(taskManager.upsertTask(
+                    createTestTask(
+                            LocalDateTime.of(2024, 11, 20, 10, i),
+                            Duration.ofMinutes(1)
+                    )
+            ));
+        }
+        List<Task> collected = new ArrayList<>();
+        Integer cursor = null;
+        do {
+            Page<Task> page = taskManager.getTasks(cursor, 2);
+            assertTrue(page.items().size() <= 2);
+            collected.addAll(page.items());
+            cursor = page.next();
+        } while (cursor != null);
+        assertIterableEquals(tasks, collected);
+    }
+
+    @Test
+    void listenersReceiveChangesWithIncreasingVersions() {
+        List<TaskEvent> events = new ArrayList<>();
+        TaskListener listener = events::add;
+        taskManager.addListener(listener);
+        int epicId = taskManager.upsertEpic(createTestEpic()).getId();
+        SubTask subTask = taskManager.upsertSubTask(createTestSubTask(TaskStatus.DONE, epicId));
+        taskManager.removeSubTask(subTask.getId());
+
+        List<TaskEvent.Type> types = events.stream().map(TaskEvent::type).toList();
+        assertIterableEquals(
+                List.of(
+                        TaskEvent.Type.CREATED,
+                        TaskEvent.Type.CREATED,
+                        TaskEvent.Type.EPIC_RECALCULATED,
+                        TaskEvent.Type.REMOVED,
+                        TaskEvent.Type.EPIC_RECALCULATED
+                ),
+                types
+        );
+        assertEquals(subTask, events.get(1).after());
+        assertEquals(TaskStatus.NEW, events.get(2).before().getStatus());
+        assertEquals(TaskStatus.DONE, events.get(2).after().getStatus());
+        assertEquals(subTask, events.get(3).before());
+        assertNull(events.get(3).after());
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i - 1).version() < events.get(i).version());
+        }
+
+        taskManager.removeListener(listener);
+        events.clear();
+        taskManager.removeEpics();
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void recalculatedEpicEventKeepsPreviousSubTasks() {
+        List<TaskEvent> events = new ArrayList<>();
+        int epicId = taskManager.upsertEpic(createTestEpic()).getId();
+        SubTask first = taskManager.upsertSubTask(
+                createTestSubTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(10),
+                        epicId
+                )
+        );
+        taskManager.addListener(events::add);
+        SubTask second = taskManager.upsertSubTask(
+                createTestSubTask(
+                        LocalDateTime.of(2024, 11, 20, 11, 0),
+                        Duration.ofMinutes(10),
+                        epicId
+                )
+        );
+        taskManager.removeSubTask(first.getId());
+
+        List<TaskEvent> recalculated = events.stream()
+                .filter(event -> event.type() == TaskEvent.Type.EPIC_RECALCULATED)
+                .toList();
+        assertEquals(2, recalculated.size());
+        Epic attachedBefore = (Epic) recalculated.get(0).before();
+        Epic attachedAfter = (Epic) recalculated.get(0).after();
+        Epic detachedAfter = (Epic) recalculated.get(1).after();
+        assertIterableEquals(List.of(first.getId()), attachedBefore.getSubTasks());
+        assertEquals(2, attachedAfter.getSubTasks().size());
+        assertTrue(attachedAfter.getSubTasks().contains(second.getId()));
+        assertIterableEquals(List.of(second.getId()), detachedAfter.getSubTasks());
+    }
+
+    @Test
+    void historyIsRebuiltOnlyAfterChanges() {
+        Task task = taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(10)
+                )
+        );
+        taskManager.getTask(task.getId());
+        List<Task> history = taskManager.getHistory();
+        assertSame(history, taskManager.getHistory());
+
+        Task updated = new Task(task, TaskStatus.DONE);
+        taskManager.upsertTask(updated);
+
+        assertNotSame(history, taskManager.getHistory());
+        assertSame(updated, taskManager.getHistory().get(0));
+    }
+}
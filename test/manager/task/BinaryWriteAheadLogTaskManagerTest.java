@@ -0,0 +1,13 @@
+package manager.task;
+
+import manager.task.storage.StorageFormat;
+import manager.task.storage.StorageOptions;
+
+// Те же сценарии журнала и снимков в двоичном формате
+class BinaryWriteAheadLogTaskManagerTest extends WriteAheadLogTaskManagerTest {
+
+    @Override
+    protected StorageOptions options() {
+        return super.options().withFormat(StorageFormat.BINARY);
+    }
+}
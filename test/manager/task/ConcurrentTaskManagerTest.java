@@ -0,0 +1,92 @@
+package manager.task;
+
+import manager.Managers;
+import manager.history.ConcurrentHistoryManager;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static util.TestTaskFabric.*;
+
+class ConcurrentTaskManagerTest extends BaseTaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 500;
+
+    // Для тестирования базового функционала
+    @Override
+    protected ConcurrentTaskManager createInstance() {
+        return new ConcurrentTaskManager(new ConcurrentHistoryManager(Managers.getDefaultHistory()));
+    }
+
+    @Test
+    void concurrentUpsertKeepsScheduleWithoutIntersections() throws InterruptedException {
+        ConcurrentTaskManager manager = createInstance();
+        LocalDateTime start = LocalDateTime.of(2024, 11, 20, 0, 0);
+        AtomicInteger added = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                // Потоки пишут в пересекающиеся диапазоны, часть вставок должна быть отклонена
+                int minute = (i * 7 + thread * 13) % 2880;
+                Task task = manager.upsertTask(createTestTask(start.plusMinutes(minute), Duration.ofMinutes(15)));
+                if (task != null) {
+                    added.incrementAndGet();
+                }
+            }
+        });
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(added.get(), prioritized.size());
+        assertEquals(added.get(), manager.getTasks().size());
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertFalse(prioritized.get(i).getStartTime().isBefore(prioritized.get(i - 1).getEndTime()));
+        }
+    }
+
+    @Test
+    void concurrentSubTasksAreAttachedToEpic() throws InterruptedException {
+        ConcurrentTaskManager manager = createInstance();
+        int epicId = manager.upsertEpic(createTestEpic()).getId();
+        LocalDateTime start = LocalDateTime.of(2024, 11, 20, 0, 0);
+        runConcurrently(thread -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                LocalDateTime time = start.plusDays(thread).plusMinutes(i);
+                manager.upsertSubTask(createTestSubTask(time, Duration.ofMinutes(1), epicId));
+            }
+        });
+
+        Epic epic = manager.getEpic(epicId);
+        assertEquals(THREADS * ITERATIONS, epic.getSubTasks().size());
+        assertEquals(THREADS * ITERATIONS, manager.getSubTasks(epicId).size());
+        assertEquals(start, epic.getStartTime());
+        SubTask last = manager.getPrioritizedTasks().stream()
+                .map(SubTask.class::cast)
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        assertEquals(last.getEndTime(), epic.getEndTime());
+    }
+
+    private void runConcurrently(ThreadBody body) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            int number = thread;
+            executor.execute(() -> body.run(number));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
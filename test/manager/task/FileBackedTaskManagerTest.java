@@ -1,16 +1,22 @@
 package manager.task;
 
+import manager.exception.ManagerSaveException;
+import manager.task.storage.StorageOptions;
 import model.Epic;
 import model.SubTask;
 import model.Task;
+import model.TaskStatus;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static util.TestTaskFabric.*;
@@ -26,11 +32,19 @@ class FileBackedTaskManagerTest extends BaseTaskManagerTest<FileBackedTaskManage
     private static Task task;
     private static SubTask subTask;
 
+    protected StorageOptions options() {
+        return StorageOptions.defaults();
+    }
+
+    protected FileBackedTaskManager load(File file) {
+        return FileBackedTaskManager.loadFromFile(file, options());
+    }
+
     // Для тестирования базового функционала
     @Override
     protected FileBackedTaskManager createInstance() {
         try {
-            return FileBackedTaskManager.loadFromFile(File.createTempFile("main_test", ".csv"));
+            return load(File.createTempFile("main_test", ".csv"));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -61,7 +75,7 @@ class FileBackedTaskManagerTest extends BaseTaskManagerTest<FileBackedTaskManage
 
         try {
             tempFile = File.createTempFile("test", ".csv");
-            tempManager = FileBackedTaskManager.loadFromFile(tempFile);
+            tempManager = load(tempFile);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -69,7 +83,7 @@ class FileBackedTaskManagerTest extends BaseTaskManagerTest<FileBackedTaskManage
 
     @Test
     public void loadFromFileByEmptyFile() {
-        assertDoesNotThrow(() -> FileBackedTaskManager.loadFromFile(emptyFile));
+        assertDoesNotThrow(() -> load(emptyFile));
     }
 
     @Test
@@ -78,7 +92,7 @@ class FileBackedTaskManagerTest extends BaseTaskManagerTest<FileBackedTaskManage
         tempManager.upsertEpic(epic);
         tempManager.upsertSubTask(subTask);
 
-        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(tempFile);
+        FileBackedTaskManager manager = load(tempFile);
 
         assertEquals(1, manager.getTasks().size());
         assertEquals(1, manager.getEpics().size());
@@ -116,7 +130,7 @@ class FileBackedTaskManagerTest extends BaseTaskManagerTest<FileBackedTaskManage
                 )
         );
 
-        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(tempFile);
+        FileBackedTaskManager manager = load(tempFile);
 
         assertIterableEquals(
                 tempManager.getPrioritizedTasks(),
@@ -128,7 +142,7 @@ class FileBackedTaskManagerTest extends BaseTaskManagerTest<FileBackedTaskManage
     public void writeTaskAndLoadFile() {
         tempManager.upsertTask(task);
 
-        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(tempFile);
+        FileBackedTaskManager manager = load(tempFile);
 
         Task newTask = manager.getTask(task.getId());
 
@@ -140,7 +154,7 @@ class FileBackedTaskManagerTest extends BaseTaskManagerTest<FileBackedTaskManage
     public void writeEpicAndLoadFile() {
         tempManager.upsertEpic(epic);
 
-        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(tempFile);
+        FileBackedTaskManager manager = load(tempFile);
 
         Task newEpic = manager.getEpic(epic.getId());
 
@@ -154,13 +168,13 @@ class FileBackedTaskManagerTest extends BaseTaskManagerTest<FileBackedTaskManage
         tempManager.upsertEpic(epic);
         tempManager.upsertSubTask(subTask);
 
-        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(tempFile);
+        FileBackedTaskManager manager = load(tempFile);
 
         Epic newEpic = manager.getEpic(epic.getId());
         SubTask newSubTask = manager.getSubTask(subTask.getId());
 
         assertEqualsTask(tempManager.getEpic(epic.getId()), newEpic);
-        assertIterableEquals(epic.getSubTasks(), newEpic.getSubTasks());
+        assertIterableEquals(tempManager.getEpic(epic.getId()).getSubTasks(), newEpic.getSubTasks());
         assertIterableEquals(manager.getEpics(), tempManager.getEpics());
 
         assertEqualsTask(subTask, newSubTask);
@@ -168,6 +182,142 @@ class FileBackedTaskManagerTest extends BaseTaskManagerTest<FileBackedTaskManage
         assertIterableEquals(manager.getSubTasks(), tempManager.getSubTasks());
     }
 
+    @Test
+    public void writeHistoryAndLoadFile() {
+        tempManager.upsertTask(task);
+        tempManager.upsertEpic(epic);
+        tempManager.upsertSubTask(subTask);
+        tempManager.getSubTask(subTask.getId());
+        tempManager.getTask(task.getId());
+        tempManager.getEpic(epic.getId());
+        tempManager.getSubTask(subTask.getId());
+        tempManager.removeTask(task.getId());
+        tempManager.close();
+
+        FileBackedTaskManager manager = load(tempFile);
+
+        assertIterableEquals(tempManager.getHistory(), manager.getHistory());
+        assertIterableEquals(List.of(epic.getId(), subTask.getId()), manager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    public void loadHistoryWithBrokenRecord() throws IOException {
+        Task tenth = tempManager.upsertTask(
+                createTestTask(
+                        10,
+                        LocalDateTime.of(2024, 11, 21, 10, 0),
+                        Duration.ofMinutes(1)
+                )
+        );
+        Task twelfth = tempManager.upsertTask(
+                createTestTask(
+                        12,
+                        LocalDateTime.of(2024, 11, 21, 11, 0),
+                        Duration.ofMinutes(1)
+                )
+        );
+        tempManager.upsertEpic(epic);
+        tempManager.getEpic(epic.getId());
+        tempManager.getTask(twelfth.getId());
+        tempManager.getTask(tenth.getId());
+        tempManager.close();
+        // Аварийная остановка оборвала последнюю запись "V10" до "V1" — id существующего эпика
+        File historyFile = new File(tempFile.getPath() + ".history");
+        String records = Files.readString(historyFile.toPath());
+        Files.writeString(historyFile.toPath(), records.substring(0, records.lastIndexOf("V10") + 2));
+
+        FileBackedTaskManager manager = load(tempFile);
+
+        assertIterableEquals(List.of(epic.getId(), twelfth.getId()), manager.getHistory().stream().map(Task::getId).toList());
+        // Обрывок отрезан, поэтому новые записи не склеиваются с ним
+        manager.getTask(tenth.getId());
+        manager.close();
+        assertIterableEquals(
+                List.of(epic.getId(), twelfth.getId(), tenth.getId()),
+                load(tempFile).getHistory().stream().map(Task::getId).toList()
+        );
+    }
+
+    @Test
+    public void loadHistoryStopsAtUnreadableRecord() throws IOException {
+        tempManager.upsertTask(task);
+        tempManager.upsertEpic(epic);
+        tempManager.close();
+        Files.writeString(
+                new File(tempFile.getPath() + ".history").toPath(),
+                "V" + task.getId() + "\nX\nV" + epic.getId() + "\n"
+        );
+
+        FileBackedTaskManager manager = load(tempFile);
+
+        assertIterableEquals(List.of(task), manager.getHistory());
+    }
+
+    @Test
+    public void historyWriteFailureIsReportedOnClose() throws IOException {
+        tempManager.upsertTask(task);
+        Files.createDirectory(new File(tempFile.getPath() + ".history").toPath());
+
+        tempManager.getTask(task.getId());
+
+        assertThrows(ManagerSaveException.class, tempManager::close);
+    }
+
+    @Test
+    public void historyLogIsCompacted() throws IOException {
+        tempManager.upsertTask(task);
+        tempManager.upsertEpic(epic);
+        for (int i = 0; i < 5000; i++) {
+            tempManager.getTask(task.getId());
+            tempManager.getEpic(epic.getId());
+        }
+        tempManager.close();
+
+        List<String> records = Files.readAllLines(new File(tempFile.getPath() + ".history").toPath());
+        assertTrue(records.size() < 2 * 5000);
+        FileBackedTaskManager manager = load(tempFile);
+        assertIterableEquals(List.of(task.getId(), epic.getId()), manager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    public void newIdsAfterLoadDoNotCollide() {
+        Task saved = tempManager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(1)));
+
+        FileBackedTaskManager manager = load(tempFile);
+        Task created = manager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 11, 0), Duration.ofMinutes(1)));
+
+        assertNotEquals(saved.getId(), created.getId());
+        assertEquals(2, manager.getTasks().size());
+    }
+
+    @Test
+    public void loadLargeBoard() {
+        List<Task> batch = new ArrayList<>();
+        for (int epicId = 1; epicId <= 10; epicId++) {
+            batch.add(createTestEpic(epicId));
+        }
+        LocalDateTime start = LocalDateTime.of(2024, 11, 20, 0, 0);
+        for (int i = 0; i < 5000; i++) {
+            int epicId = i % 10 + 1;
+            SubTask subTask = new SubTask("SubTask " + i, "Description", start.plusMinutes(2L * i), Duration.ofMinutes(1), epicId);
+            subTask.setId(100 + i);
+            // Все подзадачи первого эпика выполнены, у остальных статусы смешанные
+            TaskStatus status = epicId == 1 || i % 3 == 0 ? TaskStatus.DONE : TaskStatus.NEW;
+            batch.add(new SubTask(subTask, status));
+        }
+        assertNotNull(tempManager.upsertAll(batch));
+
+        FileBackedTaskManager manager = load(tempFile);
+
+        assertEquals(5000, manager.getSubTasks().size());
+        assertIterableEquals(tempManager.getEpics(), manager.getEpics());
+        assertIterableEquals(tempManager.getPrioritizedTasks(), manager.getPrioritizedTasks());
+        assertEquals(TaskStatus.DONE, manager.getEpic(1).getStatus());
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpic(2).getStatus());
+        assertEquals(start, manager.getEpic(1).getStartTime());
+        assertEquals(500, manager.getSubTasks(2).size());
+    }
+
     private void assertEqualsTask(Task t1, Task t2) {
         assertEquals(t1.getType(), t2.getType());
         assertEquals(t1.getStatus(), t2.getStatus());
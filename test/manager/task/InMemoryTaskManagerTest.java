@@ -1,6 +1,17 @@
 package manager.task;
 
 import manager.Managers;
+import manager.event.TaskEvent;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static util.TestTaskFabric.createTestTask;
 
 class InMemoryTaskManagerTest extends BaseTaskManagerTest<InMemoryTaskManager> {
 
@@ -9,4 +20,43 @@ class InMemoryTaskManagerTest extends BaseTaskManagerTest<InMemoryTaskManager> {
     protected InMemoryTaskManager createInstance() {
         return new InMemoryTaskManager(Managers.getDefaultHistory());
     }
-}
\ No newline at end of file
+
+    @Test
+    void deduplicatesRepeatedNames() {
+        InMemoryTaskManager taskManager = createInstance();
+        taskManager.setDeduplicateStrings(true);
+        Task first = taskManager.upsertTask(new Task(
+                new String("Name"),
+                new String("Description"),
+                LocalDateTime.of(2024, 11, 20, 10, 0),
+                Duration.ofMinutes(10)
+        ));
+        Task second = taskManager.upsertTask(new Task(
+                new String("Name"),
+                new String("Description"),
+                LocalDateTime.of(2024, 11, 20, 11, 0),
+                Duration.ofMinutes(10)
+        ));
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getDescription(), second.getDescription());
+    }
+
+    @Test
+    void listenerFailuresGoToErrorHandler() {
+        InMemoryTaskManager taskManager = createInstance();
+        List<TaskEvent> failed = new ArrayList<>();
+        List<TaskEvent> delivered = new ArrayList<>();
+        taskManager.setListenerErrorHandler((event, error) -> failed.add(event));
+        taskManager.addListener(event -> {
+            throw new IllegalStateException("Listener failure.");
+        });
+        taskManager.addListener(delivered::add);
+
+        Task task = taskManager.upsertTask(createTestTask());
+
+        assertNotNull(taskManager.getTask(task.getId()));
+        assertEquals(1, taskManager.getListenerFailures());
+        assertEquals(1, failed.size());
+        assertEquals(delivered, failed);
+    }
+}
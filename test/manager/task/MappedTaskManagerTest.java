@@ -0,0 +1,105 @@
+package manager.task;
+
+import manager.exception.ManagerLoadException;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static util.TestTaskFabric.*;
+
+class MappedTaskManagerTest extends BaseTaskManagerTest<MappedTaskManager> {
+
+    // Для тестирования базового функционала
+    @Override
+    protected MappedTaskManager createInstance() {
+        try {
+            return MappedTaskManager.open(createTempFile());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void reopenedStoreKeepsTasks() throws IOException {
+        File file = createTempFile();
+        MappedTaskManager manager = MappedTaskManager.open(file);
+        Epic epic = manager.upsertEpic(createTestEpic());
+        SubTask subTask = manager.upsertSubTask(
+                createTestSubTask(TaskStatus.DONE, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10), epic.getId())
+        );
+        Task task = manager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 11, 0), Duration.ofMinutes(10)));
+        Task removed = manager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 12, 0), Duration.ofMinutes(10)));
+        manager.removeTask(removed.getId());
+        manager.close();
+
+        MappedTaskManager reopened = MappedTaskManager.open(file);
+        assertIterableEquals(manager.getTasks(), reopened.getTasks());
+        assertEquals(TaskStatus.DONE, reopened.getEpic(epic.getId()).getStatus());
+        assertEquals(subTask.getStartTime(), reopened.getSubTask(subTask.getId()).getStartTime());
+        assertEquals(task.getDuration(), reopened.getTask(task.getId()).getDuration());
+        assertIterableEquals(manager.getPrioritizedTasks(), reopened.getPrioritizedTasks());
+        reopened.upsertTask(createTestTask());
+        assertEquals(2, reopened.getTasks().size());
+    }
+
+    @Test
+    void updatesAreWrittenInPlace() throws IOException {
+        File file = createTempFile();
+        MappedTaskManager manager = MappedTaskManager.open(file);
+        Task task = manager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(1)));
+        long recordsSize = Files.size(file.toPath());
+        long stringsSize = Files.size(stringsOf(file));
+        for (int i = 0; i < 10_000; i++) {
+            manager.upsertTask(new Task(task, i % 2 == 0 ? TaskStatus.IN_PROGRESS : TaskStatus.DONE));
+        }
+        manager.close();
+
+        // Смена статуса не дописывает ни записей, ни строк
+        assertEquals(recordsSize, Files.size(file.toPath()));
+        assertEquals(stringsSize, Files.size(stringsOf(file)));
+        assertEquals(TaskStatus.DONE, MappedTaskManager.open(file).getTask(task.getId()).getStatus());
+    }
+
+    @Test
+    void storeGrowsBeyondInitialMapping() throws IOException {
+        File file = createTempFile();
+        MappedTaskManager manager = MappedTaskManager.open(file);
+        String description = "x".repeat(100);
+        for (int i = 0; i < 5000; i++) {
+            manager.upsertTask(new Task("Task " + i, description + i, null, null));
+        }
+        manager.close();
+
+        MappedTaskManager reopened = MappedTaskManager.open(file);
+        assertEquals(5000, reopened.getTasks().size());
+        assertEquals(description + 4999, reopened.getTask(4999).getDescription());
+    }
+
+    @Test
+    void otherFileIsRejected() throws IOException {
+        File file = createTempFile();
+        Files.writeString(file.toPath(), "1, TASK, name, NEW, description, , 10, ");
+
+        assertThrows(ManagerLoadException.class, () -> MappedTaskManager.open(file));
+    }
+
+    private static Path stringsOf(File file) {
+        return new File(file.getPath() + ".strings").toPath();
+    }
+
+    private static File createTempFile() throws IOException {
+        File file = File.createTempFile("mapped_test", ".db");
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,99 @@
+package manager.task;
+
+import manager.task.storage.StorageMode;
+import manager.task.storage.StorageOptions;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Те же сценарии, что и для снимков, плюс проверки страниц
+class PagedTaskManagerTest extends FileBackedTaskManagerTest {
+
+    private static final int BLOCK_SIZE = 4096;
+
+    @Override
+    protected StorageOptions options() {
+        return StorageOptions.defaults().withMode(StorageMode.PAGED);
+    }
+
+    @Test
+    void statusChangeRewritesOnlyItsPage() throws IOException {
+        File file = File.createTempFile("paged_test", ".db");
+        FileBackedTaskManager manager = load(file);
+        List<Task> batch = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 11, 20, 0, 0);
+        for (int i = 0; i < 5000; i++) {
+            batch.add(new Task("Task " + i, "Description", start.plusMinutes(2L * i), Duration.ofMinutes(1)));
+        }
+        manager.upsertAll(batch);
+        byte[] before = Files.readAllBytes(file.toPath());
+
+        Task task = manager.getTask(2500);
+        manager.upsertTask(new Task(task, TaskStatus.DONE));
+        byte[] after = Files.readAllBytes(file.toPath());
+
+        // Новая версия страницы задачи занимает несколько блоков, остальные страницы не тронуты
+        assertTrue(changedBlocks(before, after) * 10 < after.length / BLOCK_SIZE);
+        assertEquals(TaskStatus.DONE, load(file).getTask(task.getId()).getStatus());
+    }
+
+    @Test
+    void tornPageFallsBackToPreviousVersion() throws IOException {
+        File file = File.createTempFile("paged_test", ".db");
+        FileBackedTaskManager manager = load(file);
+        Task task = manager.upsertTask(new Task("Task", "Description", null, null));
+        byte[] before = Files.readAllBytes(file.toPath());
+        manager.upsertTask(new Task(task, TaskStatus.IN_PROGRESS));
+        byte[] after = Files.readAllBytes(file.toPath());
+
+        // Портим последний байт новой версии страницы, как при сбое во время записи
+        int last = after.length - 1;
+        while (last < before.length && before[last] == after[last]) {
+            last--;
+        }
+        after[last] ^= 1;
+        Files.write(file.toPath(), after);
+
+        assertEquals(TaskStatus.NEW, load(file).getTask(task.getId()).getStatus());
+    }
+
+    @Test
+    void freedPagesAreReused() throws IOException {
+        File file = File.createTempFile("paged_test", ".db");
+        FileBackedTaskManager manager = load(file);
+        Task task = manager.upsertTask(new Task("Task", "Description", null, null));
+        for (int i = 0; i < 100; i++) {
+            manager.upsertTask(new Task(task, i % 2 == 0 ? TaskStatus.IN_PROGRESS : TaskStatus.DONE));
+        }
+
+        // Заголовок файла и две ячейки, которые сменяют друг друга
+        assertTrue(Files.size(file.toPath()) <= 3 * BLOCK_SIZE);
+        FileBackedTaskManager loaded = load(file);
+        assertEquals(TaskStatus.DONE, loaded.getTask(task.getId()).getStatus());
+        manager.removeTask(task.getId());
+        assertTrue(load(file).getTasks().isEmpty());
+    }
+
+    private static int changedBlocks(byte[] before, byte[] after) {
+        int changed = 0;
+        for (int block = 0; block * BLOCK_SIZE < after.length; block++) {
+            for (int i = block * BLOCK_SIZE; i < Math.min(after.length, (block + 1) * BLOCK_SIZE); i++) {
+                if (i >= before.length || before[i] != after[i]) {
+                    changed++;
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+}
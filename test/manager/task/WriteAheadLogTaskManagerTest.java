@@ -0,0 +1,177 @@
+package manager.task;
+
+import manager.task.storage.Durability;
+import manager.task.storage.StorageMode;
+import manager.task.storage.StorageOptions;
+import manager.task.storage.TaskFormat;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static util.TestTaskFabric.*;
+
+// Те же сценарии, что и для снимков, плюс проверки журнала
+class WriteAheadLogTaskManagerTest extends FileBackedTaskManagerTest {
+
+    @Override
+    protected StorageOptions options() {
+        return StorageOptions.defaults().withMode(StorageMode.WRITE_AHEAD_LOG);
+    }
+
+    @Test
+    void mutationsAreAppendedWithoutRewritingSnapshot() throws IOException {
+        File file = File.createTempFile("wal_test", ".csv");
+        FileBackedTaskManager manager = load(file);
+        Epic epic = manager.upsertEpic(createTestEpic());
+        SubTask subTask = manager.upsertSubTask(
+                createTestSubTask(TaskStatus.DONE, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10), epic.getId())
+        );
+        Task task = manager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 11, 0), Duration.ofMinutes(10)));
+        manager.removeTask(task.getId());
+
+        assertEquals(0, Files.size(file.toPath()));
+        assertEquals(4, countRecords(file));
+
+        FileBackedTaskManager loaded = load(file);
+        assertTrue(loaded.getTasks().isEmpty());
+        assertEquals(TaskStatus.DONE, loaded.getEpic(epic.getId()).getStatus());
+        assertEquals(subTask.getStartTime(), loaded.getSubTask(subTask.getId()).getStartTime());
+    }
+
+    @Test
+    void logIsCompactedIntoSnapshot() throws IOException {
+        File file = File.createTempFile("wal_test", ".csv");
+        FileBackedTaskManager manager = load(file);
+        Task task = manager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(1)));
+        for (int i = 0; i < 2000; i++) {
+            TaskStatus status = i % 2 == 0 ? TaskStatus.IN_PROGRESS : TaskStatus.DONE;
+            manager.upsertTask(new Task(task, status));
+        }
+        // Снимок пишется в фоне, close дожидается его
+        manager.close();
+
+        assertTrue(countRecords(file) < 2000);
+        assertEquals(1, segmentsOf(file).size());
+        int[] snapshotTasks = new int[1];
+        format().readSnapshot(file.toPath(), snapshotTask -> snapshotTasks[0]++);
+        assertEquals(1, snapshotTasks[0]);
+        assertEquals(TaskStatus.DONE, load(file).getTask(task.getId()).getStatus());
+    }
+
+    @Test
+    void segmentsCoveredBySnapshotCanBeReplayedAgain() throws IOException {
+        File file = File.createTempFile("wal_test", ".csv");
+        FileBackedTaskManager manager = load(file);
+        Task task = manager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(1)));
+        byte[] firstSegment = Files.readAllBytes(segmentsOf(file).get(0));
+        for (int i = 0; i < 2000; i++) {
+            manager.upsertTask(new Task(task, i % 2 == 0 ? TaskStatus.IN_PROGRESS : TaskStatus.DONE));
+        }
+        manager.removeTask(task.getId());
+        manager.close();
+        // Сбой между записью снимка и удалением сегментов: уже учтенный сегмент остался на диске
+        Files.write(new File(file.getPath() + ".wal.0").toPath(), firstSegment);
+
+        assertTrue(load(file).getTasks().isEmpty());
+    }
+
+    @Test
+    void tornRecordIsDiscarded() throws IOException {
+        File file = File.createTempFile("wal_test", ".csv");
+        FileBackedTaskManager manager = load(file);
+        Task task = manager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(1)));
+        // Запись, от которой до сбоя успели попасть на диск все байты, кроме последнего
+        Task torn = createTestTask(LocalDateTime.of(2024, 11, 20, 12, 0), Duration.ofMinutes(1));
+        torn.setId(99);
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        format().writeUpsert(record, torn);
+        byte[] bytes = record.toByteArray();
+        List<Path> segments = segmentsOf(file);
+        Files.write(segments.get(segments.size() - 1), Arrays.copyOf(bytes, bytes.length - 1), StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = load(file);
+        assertEquals(1, loaded.getTasks().size());
+        Task created = loaded.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 11, 0), Duration.ofMinutes(1)));
+
+        FileBackedTaskManager reloaded = load(file);
+        assertNotNull(reloaded.getTask(task.getId()));
+        assertNotNull(reloaded.getTask(created.getId()));
+    }
+
+    @Test
+    void groupAndAsyncDurabilityKeepMutations() throws IOException {
+        for (Durability durability : List.of(Durability.GROUP, Durability.ASYNC)) {
+            File file = File.createTempFile("wal_test", ".csv");
+            StorageOptions options = options().withDurability(durability).withFlush(Duration.ofMillis(1), 8);
+            FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file, options);
+            Epic epic = manager.upsertEpic(createTestEpic());
+            manager.upsertSubTask(
+                    createTestSubTask(TaskStatus.DONE, LocalDateTime.of(2024, 11, 20, 10, 0), Duration.ofMinutes(10), epic.getId())
+            );
+            manager.close();
+
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, options);
+            assertEquals(TaskStatus.DONE, loaded.getEpic(epic.getId()).getStatus());
+        }
+    }
+
+    @Test
+    void groupDurabilityDoesNotWaitForFlushInterval() throws IOException {
+        File file = File.createTempFile("wal_test", ".csv");
+        StorageOptions options = options().withDurability(Durability.GROUP).withFlush(Duration.ofHours(1), 64);
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file, options);
+
+        // Единственный писатель не ждет таймера: каждая операция сразу дожидается своего fsync
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < 100; i++) {
+                manager.upsertTask(
+                        createTestTask(
+                                LocalDateTime.of(2024, 11, 20, 10, 0).plusMinutes(i),
+                                Duration.ofMinutes(1)
+                        )
+                );
+            }
+        });
+
+        assertEquals(100, FileBackedTaskManager.loadFromFile(file, options).getTasks().size());
+        manager.close();
+    }
+
+    // Сегменты журнала по возрастанию номера
+    private static List<Path> segmentsOf(File file) throws IOException {
+        String prefix = file.getName() + ".wal.";
+        try (Stream<Path> files = Files.list(file.toPath().getParent())) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix))
+                    .sorted(Comparator.comparingInt(path -> Integer.parseInt(path.getFileName().toString().substring(prefix.length()))))
+                    .toList();
+        }
+    }
+
+    private int countRecords(File file) throws IOException {
+        int[] count = new int[1];
+        for (Path segment : segmentsOf(file)) {
+            format().readRecords(Files.readAllBytes(segment), task -> count[0]++, id -> count[0]++);
+        }
+        return count[0];
+    }
+
+    private TaskFormat format() {
+        return options().format().create();
+    }
+}
@@ -0,0 +1,102 @@
+package manager.task.storage;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTaskFormatTest {
+
+    private final BinaryTaskFormat format = new BinaryTaskFormat();
+
+    @Test
+    void snapshotKeepsFieldsThatCsvCannot() throws IOException {
+        Task original = new Task("Имя, с запятой", "строка\nвторая", LocalDateTime.of(1960, 1, 1, 0, 0, 1, 5), Duration.ofNanos(1_500));
+        original.setId(-3);
+        Task task = new Task(original, TaskStatus.IN_PROGRESS);
+        Epic epic = new Epic(null, "");
+        epic.setId(1);
+        SubTask subTask = new SubTask("sub", null, null, Duration.ofMinutes(5), 1);
+        subTask.setId(Integer.MAX_VALUE);
+        subTask = new SubTask(subTask, TaskStatus.DONE);
+
+        Path path = File.createTempFile("snapshot", ".bin").toPath();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        format.writeSnapshot(out, List.<Collection<? extends Task>>of(List.of(task), List.of(epic, subTask)));
+        Files.write(path, out.toByteArray());
+        List<Task> loaded = new ArrayList<>();
+        format.readSnapshot(path, loaded::add);
+
+        assertEquals(3, loaded.size());
+        Task first = loaded.get(0);
+        assertEquals(-3, first.getId());
+        assertEquals("Имя, с запятой", first.getName());
+        assertEquals("строка\nвторая", first.getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, first.getStatus());
+        assertEquals(task.getStartTime(), first.getStartTime());
+        assertEquals(task.getDuration(), first.getDuration());
+
+        Task second = loaded.get(1);
+        assertTrue(second instanceof Epic);
+        assertNull(second.getName());
+        assertEquals("", second.getDescription());
+
+        SubTask third = (SubTask) loaded.get(2);
+        assertNull(third.getDescription());
+        assertNull(third.getStartTime());
+        assertEquals(1, third.getEpicId());
+        assertEquals(TaskStatus.DONE, third.getStatus());
+    }
+
+    @Test
+    void corruptedRecordInTheMiddleIsRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        format.writeRemove(out, 1);
+        format.writeRemove(out, 2);
+        byte[] bytes = out.toByteArray();
+        // Портим тело первой записи: вид, длина, тело
+        bytes[2] ^= 1;
+
+        assertThrows(IOException.class, () -> format.readRecords(bytes, task -> {
+        }, id -> {
+        }));
+    }
+
+    @Test
+    void corruptedLastRecordIsTreatedAsTorn() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        format.writeRemove(out, 1);
+        int valid = out.size();
+        format.writeRemove(out, 2);
+        byte[] bytes = out.toByteArray();
+        bytes[bytes.length - 1] ^= 1;
+
+        List<Integer> removed = new ArrayList<>();
+        assertEquals(valid, format.readRecords(bytes, task -> {
+        }, removed::add));
+        assertEquals(List.of(1), removed);
+    }
+
+    @Test
+    void snapshotOfOtherFormatIsRejected() throws IOException {
+        Path path = File.createTempFile("snapshot", ".bin").toPath();
+        Files.writeString(path, "1, TASK, name, NEW, description, , 10, ");
+
+        assertThrows(IOException.class, () -> format.readSnapshot(path, task -> {
+        }));
+    }
+}
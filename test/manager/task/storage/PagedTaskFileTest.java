@@ -0,0 +1,72 @@
+package manager.task.storage;
+
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static util.TestTaskFabric.createTestTask;
+
+class PagedTaskFileTest {
+
+    @Test
+    void unforcedCommitKeepsLastForcedVersion() throws IOException {
+        Path path = createTempPath();
+        PagedTaskFile file = new PagedTaskFile(path, new CsvTaskFormat());
+        Task task = createTestTask(1);
+        file.writePage(0, List.of(task));
+        file.commit(true);
+        long forcedSize = Files.size(path);
+
+        file.writePage(0, List.of(new Task(task, TaskStatus.IN_PROGRESS)));
+        file.commit(false);
+        file.writePage(0, List.of(new Task(task, TaskStatus.DONE)));
+        file.commit(false);
+        file.close();
+
+        // Все, что не было сброшено, потеряно при сбое; прежние ячейки при этом не должны быть заняты
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(forcedSize);
+        }
+        List<Task> loaded = load(path);
+        assertEquals(1, loaded.size());
+        assertEquals(TaskStatus.NEW, loaded.get(0).getStatus());
+    }
+
+    @Test
+    void forcedCommitReusesReleasedSlots() throws IOException {
+        Path path = createTempPath();
+        PagedTaskFile file = new PagedTaskFile(path, new CsvTaskFormat());
+        Task task = createTestTask(1);
+        for (int i = 0; i < 100; i++) {
+            file.writePage(0, List.of(new Task(task, i % 2 == 0 ? TaskStatus.IN_PROGRESS : TaskStatus.DONE)));
+            file.commit(true);
+        }
+        file.close();
+
+        // Заголовок файла и две ячейки, которые сменяют друг друга
+        assertTrue(Files.size(path) <= 3 * 4096);
+        assertEquals(TaskStatus.DONE, load(path).get(0).getStatus());
+    }
+
+    private static List<Task> load(Path path) throws IOException {
+        PagedTaskFile file = new PagedTaskFile(path, new CsvTaskFormat());
+        List<Task> tasks = new ArrayList<>();
+        file.load(tasks::add);
+        file.close();
+        return tasks;
+    }
+
+    private static Path createTempPath() throws IOException {
+        return File.createTempFile("paged_test", ".db").toPath();
+    }
+}
@@ -0,0 +1,148 @@
+package manager.task.storage;
+
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    void syncCommitReachesFileImmediately() throws IOException {
+        Path path = createTempPath();
+        WriteAheadLog log = new WriteAheadLog(path, new CsvTaskFormat(), Durability.SYNC, Duration.ofHours(1), 1);
+        log.appendRemove(7);
+        log.commit();
+
+        assertEquals(List.of("-7"), Files.readAllLines(segment(path, 1)));
+        log.close();
+    }
+
+    @Test
+    void asyncCommitDoesNotWaitForDisk() throws IOException {
+        Path path = createTempPath();
+        WriteAheadLog log = new WriteAheadLog(path, new CsvTaskFormat(), Durability.ASYNC, Duration.ofHours(1), 64);
+        log.appendRemove(7);
+        log.commit();
+
+        // Сброс запланирован через час, поэтому запись еще в буфере
+        assertEquals(0, Files.size(segment(path, 1)));
+        log.close();
+        assertEquals(List.of("-7"), Files.readAllLines(segment(path, 1)));
+    }
+
+    @Test
+    void groupCommitConfirmsConcurrentWriters() throws Exception {
+        Path path = createTempPath();
+        WriteAheadLog log = new WriteAheadLog(path, new CsvTaskFormat(), Durability.GROUP, Duration.ofMillis(5), 4);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int offset = thread * ITERATIONS;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    log.appendRemove(offset + i);
+                    log.commit();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Каждая операция вернулась только после fsync, поэтому все записи уже в файле
+        List<Task> upserted = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        new WriteAheadLog(path).replay(upserted::add, removed::add);
+        assertTrue(upserted.isEmpty());
+        assertEquals(THREADS * ITERATIONS, removed.size());
+        // Операции, пришедшие во время чужого fsync, подтверждены общим
+        assertTrue(log.syncs() < THREADS * ITERATIONS);
+        log.close();
+    }
+
+    @Test
+    void groupCommitOfLoneWriterDoesNotWaitForTimer() throws IOException {
+        Path path = createTempPath();
+        WriteAheadLog log = new WriteAheadLog(path, new CsvTaskFormat(), Durability.GROUP, Duration.ofHours(1), 64);
+
+        // Сброс по таймеру наступил бы через час: одиночная операция сбрасывает журнал сама
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < 100; i++) {
+                log.appendRemove(i);
+                log.commit();
+            }
+        });
+        assertEquals(100, log.syncs());
+        assertEquals(100, Files.readAllLines(segment(path, 1)).size());
+        log.close();
+    }
+
+    @Test
+    void asyncCommitFlushesFullBatch() throws Exception {
+        Path path = createTempPath();
+        WriteAheadLog log = new WriteAheadLog(path, new CsvTaskFormat(), Durability.ASYNC, Duration.ofHours(1), 2);
+        log.appendRemove(1);
+        log.commit();
+        log.appendRemove(2);
+        log.commit();
+
+        // Пачка набрана, поэтому сброс не ждет таймера
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (log.syncs() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(List.of("-1", "-2"), Files.readAllLines(segment(path, 1)));
+        log.close();
+    }
+
+    @Test
+    void rotatedSegmentsAreReplayedInOrderUntilDeleted() throws IOException {
+        Path path = createTempPath();
+        WriteAheadLog log = new WriteAheadLog(path);
+        log.appendRemove(1);
+        log.commit();
+        int next = log.rotate();
+        log.appendRemove(2);
+        log.commit();
+
+        List<Integer> removed = new ArrayList<>();
+        new WriteAheadLog(path).replay(task -> {
+        }, removed::add);
+        assertEquals(List.of(1, 2), removed);
+
+        log.deleteSegmentsBefore(next);
+        removed.clear();
+        WriteAheadLog reopened = new WriteAheadLog(path);
+        reopened.replay(task -> {
+        }, removed::add);
+        assertEquals(List.of(2), removed);
+        assertEquals(1, reopened.size());
+        log.close();
+    }
+
+    private static Path segment(Path path, int number) {
+        return Path.of(path + "." + number);
+    }
+
+    private static Path createTempPath() throws IOException {
+        return File.createTempFile("wal", ".log").toPath();
+    }
+}
@@ -60,4 +60,39 @@ class HistoryHandlerTest extends BaseHandlerTest {
         assertEquals(200, response.statusCode());
         assertTrue(taskManager.getTasks().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getTop() throws IOException, InterruptedException {
+        Task task1 = taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(1)
+                )
+        );
+        Task task2 = taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 5),
+                        Duration.ofMinutes(1)
+                )
+        );
+        taskManager.getTask(task1.getId());
+        taskManager.getTask(task2.getId());
+        taskManager.getTask(task2.getId());
+        HttpRequest topRequest = HttpUtil.get(URI.create("http://localhost:8080/history/top?k=1"));
+        HttpResponse<String> response = client.send(topRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<Task> fromServer = gson.fromJson(
+                response.body(),
+                new TypeToken<List<Task>>() {
+                }.getType()
+        );
+        assertIterableEquals(List.of(task2), fromServer);
+    }
+
+    @Test
+    public void getTopWithBadK() throws IOException, InterruptedException {
+        HttpRequest badRequest = HttpUtil.get(URI.create("http://localhost:8080/history/top?k=many"));
+        HttpResponse<String> response = client.send(badRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+}
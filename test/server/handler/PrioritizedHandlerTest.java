@@ -57,4 +57,59 @@ class PrioritizedHandlerTest extends BaseHandlerTest {
         assertEquals(200, response.statusCode());
         assertTrue(taskManager.getPrioritizedTasks().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getPrioritizedInWindow() throws IOException, InterruptedException {
+        taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 12, 0),
+                        Duration.ofMinutes(1)
+                )
+        );
+        Task task = taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 21, 12, 0),
+                        Duration.ofMinutes(1)
+                )
+        );
+        HttpRequest windowRequest = HttpUtil.get(
+                URI.create("http://localhost:8080/prioritized?from=2024-11-21T00:00&to=2024-11-22T00:00")
+        );
+        HttpResponse<String> response = client.send(windowRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<Task> fromServer = gson.fromJson(
+                response.body(),
+                new TypeToken<List<Task>>() {
+                }.getType()
+        );
+        assertIterableEquals(List.of(task), fromServer);
+    }
+
+    @Test
+    public void getPrioritizedWithBadWindow() throws IOException, InterruptedException {
+        HttpRequest badRequest = HttpUtil.get(URI.create("http://localhost:8080/prioritized?from=yesterday"));
+        HttpResponse<String> response = client.send(badRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void getFreeSlot() throws IOException, InterruptedException {
+        taskManager.upsertTask(
+                createTestTask(
+                        LocalDateTime.of(2024, 11, 20, 10, 0),
+                        Duration.ofMinutes(30)
+                )
+        );
+        HttpRequest freeRequest = HttpUtil.get(
+                URI.create("http://localhost:8080/prioritized/free?duration=PT15M&from=2024-11-20T10:00")
+        );
+        HttpResponse<String> response = client.send(freeRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<LocalDateTime> slots = gson.fromJson(
+                response.body(),
+                new TypeToken<List<LocalDateTime>>() {
+                }.getType()
+        );
+        assertIterableEquals(List.of(LocalDateTime.of(2024, 11, 20, 10, 30)), slots);
+    }
+}
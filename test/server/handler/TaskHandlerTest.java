@@ -1,5 +1,7 @@
 package server.handler;
 
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 import model.Task;
 import org.junit.jupiter.api.Test;
@@ -13,6 +15,7 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -118,4 +121,34 @@ class TaskHandlerTest extends BaseHandlerTest {
         assertEquals(200, response.statusCode());
         assertTrue(taskManager.getTasks().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getTasksByPages() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            taskManager.upsertTask(createTestTask(LocalDateTime.of(2024, 11, 20, 10, i), Duration.ofMinutes(1)));
+        }
+        HttpRequest first = HttpUtil.get(URI.create("http://localhost:8080/tasks?limit=2"));
+        HttpResponse<String> response = client.send(first, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        JsonObject page = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertEquals(2, page.getAsJsonArray("items").size());
+        String next = page.get("next").getAsString();
+
+        HttpRequest second = HttpUtil.get(URI.create("http://localhost:8080/tasks?limit=2&cursor=" + next));
+        response = client.send(second, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        page = JsonParser.parseString(response.body()).getAsJsonObject();
+        List<Task> items = gson.fromJson(page.get("items"), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(1, items.size());
+        assertEquals(new ArrayList<>(taskManager.getTasks()).get(2).getId(), items.get(0).getId());
+        assertFalse(page.has("next"));
+    }
+
+    @Test
+    public void getTasksWithBadCursor() throws IOException, InterruptedException {
+        HttpRequest request = HttpUtil.get(URI.create("http://localhost:8080/tasks?limit=2&cursor=%21%21"));
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+}